@@ -22,6 +22,7 @@ module aya.base {
   exports org.aya.concrete;
   exports org.aya.core.def;
   exports org.aya.core.meta;
+  exports org.aya.core.nbe;
   exports org.aya.core.ops;
   exports org.aya.core.pat;
   exports org.aya.core.repr;
@@ -38,6 +38,7 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
@@ -476,7 +477,7 @@ public sealed interface Expr extends AyaDocile, SourceNode, Restr.TermLike<Expr>
   /**
    * @author kiva
    */
-  record LitInt(@NotNull SourcePos sourcePos, int integer) implements Expr {
+  record LitInt(@NotNull SourcePos sourcePos, @NotNull BigInteger integer) implements Expr {
     @Override public @NotNull LitInt descent(@NotNull UnaryOperator<@NotNull Expr> f) {
       return this;
     }
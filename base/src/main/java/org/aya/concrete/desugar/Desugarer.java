@@ -22,7 +22,7 @@ public record Desugarer(@NotNull ResolveInfo info) implements StmtConsumer {
   private int levelVar(@NotNull Expr expr) throws DesugarInterruption {
     return switch (expr) {
       case Expr.BinOpSeq binOpSeq -> levelVar(pre(binOpSeq));
-      case Expr.LitInt(var pos, var i) -> i;
+      case Expr.LitInt(var pos, var i) when i.bitLength() < Integer.SIZE -> i.intValue();
       default -> {
         info.opSet().reporter.report(new LevelProblem.BadLevelExpr(expr));
         throw new DesugarInterruption();
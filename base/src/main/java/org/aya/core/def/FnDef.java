@@ -5,11 +5,13 @@ package org.aya.core.def;
 import kala.collection.immutable.ImmutableSeq;
 import kala.control.Either;
 import org.aya.concrete.stmt.decl.TeleDecl;
+import org.aya.core.pat.CaseTree;
 import org.aya.core.pat.Pat;
 import org.aya.core.term.Term;
 import org.aya.generic.Modifier;
 import org.aya.ref.DefVar;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.EnumSet;
 import java.util.function.BiFunction;
@@ -22,6 +24,13 @@ public final class FnDef extends UserDef<Term> {
   public final @NotNull EnumSet<Modifier> modifiers;
   public final @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref;
   public final @NotNull Either<Term, ImmutableSeq<Term.Matching>> body;
+  /**
+   * The clauses compiled to a case tree, null if the function is defined without pattern matching,
+   * if the clauses are order-independent (so they must be tried one by one), or if the compilation fails.
+   */
+  public final @Nullable CaseTree caseTree;
+  /** Whether the body is not defined by pattern matching and binds no variables, so it needs no renaming when unfolded. */
+  public final boolean binderFree;
 
   public FnDef(
     @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref, @NotNull ImmutableSeq<Term.Param> telescope,
@@ -34,6 +43,9 @@ public final class FnDef extends UserDef<Term> {
     ref.core = this;
     this.ref = ref;
     this.body = body;
+    this.caseTree = body.isRight() && !modifiers.contains(Modifier.Overlap)
+      ? CaseTree.compile(telescope.size(), body.getRightValue()) : null;
+    this.binderFree = body.isLeft() && CaseTree.isBinderFree(body.getLeftValue());
   }
 
   public static <T> BiFunction<Term, Either<Term, ImmutableSeq<Term.Matching>>, T>
@@ -132,6 +132,7 @@ public final class PrimDef extends TopLevelDef<Term> {
     }
   }
 
+  /** Shared by the modules of a library, see {@code LibraryCompiler} for the parallel builds */
   public static class Factory {
     public Factory() {
       var init = new Initializer();
@@ -309,9 +310,10 @@ public final class PrimDef extends TopLevelDef<Term> {
         var first = prim.args().get(0).term().normalize(state, NormalizeMode.WHNF);
         var second = prim.args().get(1).term().normalize(state, NormalizeMode.WHNF);
 
-        if (first instanceof StringTerm str1 && second instanceof StringTerm str2) {
-          return new StringTerm(str1.string() + str2.string());
-        }
+        if (first instanceof StringTerm str1 && second instanceof StringTerm str2) return str1.concat(str2);
+        // The empty string is the unit of concatenation
+        if (first instanceof StringTerm str1 && str1.length() == 0) return second;
+        if (second instanceof StringTerm str2 && str2.length() == 0) return first;
 
         return new PrimCall(prim.ref(), prim.ulift(), ImmutableSeq.of(
           new Arg<>(first, true), new Arg<>(second, true)));
@@ -334,7 +336,7 @@ public final class PrimDef extends TopLevelDef<Term> {
       private @NotNull PrimCall primCall(@NotNull PrimCall prim, @NotNull TyckState tyckState) {return prim;}
     }
 
-    public @NotNull PrimDef factory(@NotNull ID name, @NotNull DefVar<PrimDef, TeleDecl.PrimDecl> ref) {
+    public synchronized @NotNull PrimDef factory(@NotNull ID name, @NotNull DefVar<PrimDef, TeleDecl.PrimDecl> ref) {
       assert suppressRedefinition() || !have(name);
       var rst = seeds.get(name).supply(ref);
       defs.put(name, rst);
@@ -349,11 +351,11 @@ public final class PrimDef extends TopLevelDef<Term> {
       return getCall(id, ImmutableSeq.empty());
     }
 
-    public @NotNull Option<PrimDef> getOption(@NotNull ID name) {
+    public synchronized @NotNull Option<PrimDef> getOption(@NotNull ID name) {
       return Option.ofNullable(defs.get(name));
     }
 
-    public boolean have(@NotNull ID name) {
+    public synchronized boolean have(@NotNull ID name) {
       return defs.containsKey(name);
     }
 
@@ -362,7 +364,7 @@ public final class PrimDef extends TopLevelDef<Term> {
       return false;
     }
 
-    public @NotNull PrimDef getOrCreate(@NotNull ID name, @NotNull DefVar<PrimDef, TeleDecl.PrimDecl> ref) {
+    public synchronized @NotNull PrimDef getOrCreate(@NotNull ID name, @NotNull DefVar<PrimDef, TeleDecl.PrimDecl> ref) {
       return getOption(name).getOrElse(() -> factory(name, ref));
     }
 
@@ -374,11 +376,11 @@ public final class PrimDef extends TopLevelDef<Term> {
       return seeds.get(name).unfold.apply(primCall, state);
     }
 
-    public void clear() {
+    public synchronized void clear() {
       defs.clear();
     }
 
-    public void clear(@NotNull ID name) {
+    public synchronized void clear(@NotNull ID name) {
       defs.remove(name);
     }
   }
@@ -91,6 +91,11 @@ public final class Meta implements AnyVar {
     return typed;
   }
 
+  /** @return the same meta with a smaller context, used in pruning */
+  public @NotNull Meta pruned(@NotNull ImmutableSeq<Term.Param> contextTele) {
+    return new Meta(contextTele, telescope, name, info, sourcePos);
+  }
+
   public @NotNull MetaTerm asPiDom(@NotNull SortTerm sort, @NotNull ImmutableSeq<Arg<Term>> contextArgs) {
     assert telescope.isEmpty();
     assert info instanceof MetaInfo.AnyType;
@@ -0,0 +1,41 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.nbe;
+
+import kala.value.LazyValue;
+import org.aya.ref.AnyVar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A persistent environment of {@link Evaluator}, mapping variables to lazily evaluated values.
+ * Extending an environment shares the existing bindings, so closures can capture it for free.
+ */
+public sealed interface Env {
+  @NotNull Env EMPTY = Nil.INSTANCE;
+
+  enum Nil implements Env {
+    INSTANCE
+  }
+
+  record Cons(@NotNull Env parent, @NotNull AnyVar var, @NotNull LazyValue<Value> value) implements Env {
+  }
+
+  default @NotNull Env extend(@NotNull AnyVar var, @NotNull LazyValue<Value> value) {
+    return new Cons(this, var, value);
+  }
+
+  default @NotNull Env extend(@NotNull AnyVar var, @NotNull Value value) {
+    return extend(var, LazyValue.ofValue(value));
+  }
+
+  /** @return null if the variable is not bound in this environment */
+  default @Nullable LazyValue<Value> lookup(@NotNull AnyVar target) {
+    var env = this;
+    while (env instanceof Cons(var parent, var v, var value)) {
+      if (v == target) return value;
+      env = parent;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,181 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.nbe;
+
+import kala.collection.SeqLike;
+import kala.collection.immutable.ImmutableSeq;
+import kala.control.Option;
+import kala.value.LazyValue;
+import kala.value.MutableValue;
+import org.aya.core.pat.PatMatcher;
+import org.aya.core.term.*;
+import org.aya.core.visitor.Expander;
+import org.aya.core.visitor.Subst;
+import org.aya.core.visitor.VarConsumer;
+import org.aya.generic.Modifier;
+import org.aya.tyck.tycker.TyckState;
+import org.aya.util.Arg;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Normalization by evaluation. Unlike {@link Expander.WHNFer}, unfolding a definition
+ * binds its parameters in an {@link Env} instead of renaming, lifting and substituting its body,
+ * and lambdas are evaluated to closures, so beta-reduction costs no copy of the lambda body.
+ * {@link Expander.Normalizer} unfolds function calls with this evaluator.
+ * <p>
+ * Only the function fragment (lambdas, pi and sigma types, function calls and metas) is evaluated
+ * natively, the rest of the core language (the cubical primitives, mostly) is normalized
+ * with the substitution-based {@link Expander.Normalizer} after its subterms are evaluated.
+ *
+ * @see org.aya.generic.util.NormalizeMode#NBE
+ */
+public record Evaluator(@NotNull TyckState state) {
+  public @NotNull Term normalize(@NotNull Term term) {
+    return quote(eval(term, Env.EMPTY));
+  }
+
+  public @NotNull Value eval(@NotNull Term term, @NotNull Env env) {
+    return switch (term) {
+      case RefTerm ref -> {
+        var value = env.lookup(ref.var());
+        yield value != null ? value.get() : new Value.Normal(ref);
+      }
+      case LamTerm(var param, var body) -> new Value.Lam(param, body, env);
+      case AppTerm(var of, var arg) -> apply(eval(of, env), arg.map(t -> delay(t, env)));
+      case PiTerm(var param, var body) -> {
+        var fresh = param.rename();
+        var type = quote(eval(param.type(), env));
+        var newEnv = env.extend(param.ref(), new Value.Normal(fresh.toTerm()));
+        yield new Value.Normal(new PiTerm(new Term.Param(fresh, type), quote(eval(body, newEnv))));
+      }
+      case SigmaTerm(var params) -> {
+        var newEnv = env;
+        var newParams = ImmutableSeq.<Term.Param>empty();
+        for (var param : params) {
+          var fresh = param.rename();
+          newParams = newParams.appended(new Term.Param(fresh, quote(eval(param.type(), newEnv))));
+          newEnv = newEnv.extend(param.ref(), new Value.Normal(fresh.toTerm()));
+        }
+        yield new Value.Normal(new SigmaTerm(newParams));
+      }
+      case FnCall fn -> unfold(fn, delay(fn.args(), env));
+      case RuleReducer reducer -> {
+        var evaluated = (RuleReducer) reducer.descent(t -> quote(eval(t, env)), UnaryOperator.identity());
+        var result = evaluated.rule().apply(evaluated.args());
+        if (result != null) yield eval(result, Env.EMPTY);
+        // We can't handle it, try to delegate to FnCall
+        yield evaluated instanceof RuleReducer.Fn fnRule
+          ? unfold(fnRule.toFnCall(), reflect(fnRule.args()))
+          : new Value.Normal(evaluated);
+      }
+      case MetaTerm hole -> {
+        var meta = hole.ref();
+        var solution = Option.ofNullable(state.solution(meta));
+        if (solution.isDefined())
+          yield eval(solution.get(), bind(Env.EMPTY, meta.fullTelescope(), delay(hole.fullArgs(), env)));
+        yield new Value.Normal(hole.descent(t -> quote(eval(t, env)), UnaryOperator.identity()));
+      }
+      case PathTerm path -> fallback(path, env);
+      case PLamTerm lam -> fallback(lam, env);
+      case MatchTerm match -> fallback(match, env);
+      default -> {
+        var evaluated = term.descent(t -> quote(eval(t, env)), UnaryOperator.identity());
+        yield Value.reflect(new Expander.Normalizer(state).post(evaluated));
+      }
+    };
+  }
+
+  public @NotNull Term quote(@NotNull Value value) {
+    return switch (value) {
+      case Value.Normal(var term) -> term;
+      case Value.Lam(var param, var body, var env) -> {
+        var fresh = new LamTerm.Param(param.renameVar(), param.explicit());
+        yield new LamTerm(fresh, quote(eval(body, env.extend(param.ref(), new Value.Normal(fresh.toTerm())))));
+      }
+    };
+  }
+
+  public @NotNull Value apply(@NotNull Value f, @NotNull Arg<LazyValue<Value>> arg) {
+    return switch (f) {
+      case Value.Lam(var param, var body, var env) -> eval(body, env.extend(param.ref(), arg.term()));
+      case Value.Normal(var term) -> Value.reflect(AppTerm.make(term, arg.map(v -> quote(v.get()))));
+    };
+  }
+
+  private @NotNull Value unfold(@NotNull FnCall fn, @NotNull ImmutableSeq<Arg<LazyValue<Value>>> args) {
+    var def = fn.ref().core;
+    if (def == null || def.modifiers.contains(Modifier.Opaque)) return stuck(fn, args);
+    return def.body.fold(
+      lamBody -> eval(lamBody.lift(fn.ulift()), bind(Env.EMPTY, def.telescope(), args)),
+      clauses -> (def.caseTree != null
+        ? def.caseTree.match(quote(args), UnaryOperator.identity())
+        .map(matched -> eval(matched.component1().body().lift(fn.ulift()), bind(matched.component2())))
+        : tryUnfoldClauses(def.modifiers.contains(Modifier.Overlap), quote(args), fn.ulift(), clauses))
+        .getOrElse(() -> stuck(fn, args)));
+  }
+
+  /** @see org.aya.core.visitor.DeltaExpander#tryUnfoldClauses */
+  private @NotNull Option<Value> tryUnfoldClauses(
+    boolean orderIndependent, @NotNull ImmutableSeq<Arg<Term>> args,
+    int ulift, @NotNull ImmutableSeq<Term.Matching> clauses
+  ) {
+    for (var matchy : clauses) {
+      var subst = PatMatcher.tryBuildSubst(false, matchy.patterns(), args);
+      if (subst.isOk()) {
+        return Option.some(eval(matchy.body().lift(ulift), bind(subst.get())));
+      } else if (!orderIndependent && subst.getErr()) return Option.none();
+    }
+    return Option.none();
+  }
+
+  /**
+   * Terms binding variables that the evaluator does not handle natively,
+   * they are substituted and then normalized by {@link Expander.Normalizer}.
+   */
+  private @NotNull Value fallback(@NotNull Term term, @NotNull Env env) {
+    var subst = new Subst();
+    ((VarConsumer) v -> {
+      if (subst.map().containsKey(v)) return;
+      var value = env.lookup(v);
+      if (value != null) subst.addDirectly(v, quote(value.get()));
+    }).accept(term);
+    return Value.reflect(new Expander.Normalizer(state).apply(term.rename().subst(subst)));
+  }
+
+  private @NotNull Value stuck(@NotNull FnCall fn, @NotNull ImmutableSeq<Arg<LazyValue<Value>>> args) {
+    return new Value.Normal(new FnCall(fn.ref(), fn.ulift(), quote(args)));
+  }
+
+  private static @NotNull Env bind(
+    @NotNull Env env, @NotNull SeqLike<Term.Param> telescope,
+    @NotNull SeqLike<Arg<LazyValue<Value>>> args
+  ) {
+    assert telescope.sizeEquals(args);
+    for (var tup : telescope.zipView(args)) env = env.extend(tup.component1().ref(), tup.component2().term());
+    return env;
+  }
+
+  private static @NotNull Env bind(@NotNull Subst subst) {
+    var env = MutableValue.create(Env.EMPTY);
+    subst.map().forEach((var, term) -> env.set(env.get().extend(var, Value.reflect(term))));
+    return env.get();
+  }
+
+  private @NotNull LazyValue<Value> delay(@NotNull Term term, @NotNull Env env) {
+    return LazyValue.of(() -> eval(term, env));
+  }
+
+  private @NotNull ImmutableSeq<Arg<LazyValue<Value>>> delay(@NotNull SeqLike<Arg<Term>> args, @NotNull Env env) {
+    return args.view().map(arg -> arg.map(t -> delay(t, env))).toImmutableSeq();
+  }
+
+  private static @NotNull ImmutableSeq<Arg<LazyValue<Value>>> reflect(@NotNull ImmutableSeq<Arg<Term>> args) {
+    return args.map(arg -> arg.map(t -> LazyValue.ofValue(Value.reflect(t))));
+  }
+
+  private @NotNull ImmutableSeq<Arg<Term>> quote(@NotNull ImmutableSeq<Arg<LazyValue<Value>>> args) {
+    return args.map(arg -> arg.map(v -> quote(v.get())));
+  }
+}
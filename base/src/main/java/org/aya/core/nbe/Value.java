@@ -0,0 +1,29 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.nbe;
+
+import org.aya.core.term.LamTerm;
+import org.aya.core.term.Term;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Semantic values of {@link Evaluator}.
+ * Lambdas are represented as closures, so beta-reduction never copies the body.
+ * Everything else is kept as a core term that is already in normal form.
+ */
+public sealed interface Value {
+  /** A lambda whose body is evaluated in the captured environment once applied. */
+  record Lam(@NotNull LamTerm.Param param, @NotNull Term body, @NotNull Env env) implements Value {
+  }
+
+  /** A term that the evaluator cannot reduce further, in normal form. */
+  record Normal(@NotNull Term term) implements Value {
+  }
+
+  /** Turns a term in normal form back into a value. */
+  static @NotNull Value reflect(@NotNull Term term) {
+    return term instanceof LamTerm(var param, var body)
+      ? new Lam(param, body, Env.EMPTY)
+      : new Normal(term);
+  }
+}
@@ -0,0 +1,257 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.pat;
+
+import kala.collection.immutable.ImmutableMap;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableArrayList;
+import kala.collection.mutable.MutableLinkedHashMap;
+import kala.collection.mutable.MutableList;
+import kala.control.Option;
+import kala.tuple.Tuple;
+import kala.tuple.Tuple2;
+import org.aya.concrete.stmt.decl.TeleDecl;
+import org.aya.core.def.CtorDef;
+import org.aya.core.term.*;
+import org.aya.core.visitor.Subst;
+import org.aya.ref.DefVar;
+import org.aya.ref.LocalVar;
+import org.aya.util.Arg;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Pattern matching clauses compiled to a decision tree, following the first-match semantics.
+ * Matching a call against the tree inspects every argument at most once,
+ * while {@link PatMatcher} has to be run against each clause in order.
+ * <p>
+ * Scrutinees are numbered: the arguments come first, and every {@link Split}
+ * or {@link Unpack} appends the arguments of the inspected term to the scrutinees.
+ *
+ * @see #compile(int, ImmutableSeq)
+ */
+public sealed interface CaseTree {
+  /** The tree is not allowed to grow larger than this, in case of pathological clauses. */
+  int MAX_SIZE = 4096;
+
+  /**
+   * @param binds      the pattern variables of the clause and the scrutinees they are bound to
+   * @param binderFree whether {@param body} binds no variables, so it needs no renaming when unfolded
+   */
+  record Leaf(
+    @NotNull Term body, @NotNull ImmutableSeq<Tuple2<LocalVar, Integer>> binds,
+    boolean binderFree
+  ) implements CaseTree {
+    public Leaf(@NotNull Term body, @NotNull ImmutableSeq<Tuple2<LocalVar, Integer>> binds) {
+      this(body, binds, isBinderFree(body));
+    }
+
+    /** @see Term#instantiate(boolean, Subst, int) */
+    public @NotNull Term instantiate(@NotNull Subst subst, int ulift) {
+      return body.instantiate(!binderFree, subst, ulift);
+    }
+  }
+
+  /** {@link Term#rename()} preserves the identity of terms without binders. */
+  static boolean isBinderFree(@NotNull Term term) {
+    return term.rename() == term;
+  }
+
+  /** No clause matches. */
+  enum Fail implements CaseTree {
+    INSTANCE
+  }
+
+  /**
+   * @param branches the constructors with their arity and the tree to continue with
+   * @param fallback used when the constructor is not in {@param branches}
+   */
+  record Split(
+    int scrutinee,
+    @NotNull ImmutableMap<DefVar<CtorDef, TeleDecl.DataCtor>, Tuple2<Integer, CaseTree>> branches,
+    @NotNull CaseTree fallback
+  ) implements CaseTree {
+  }
+
+  /** Inspects a tuple. */
+  record Unpack(int scrutinee, int arity, @NotNull CaseTree then) implements CaseTree {
+  }
+
+  /**
+   * @param whnf used to reveal the head of the scrutinees
+   * @return the leaf of the matched clause with the substitution of its pattern variables,
+   * or none if no clause matches or the matching is blocked
+   */
+  default @NotNull Option<Tuple2<Leaf, Subst>> match(
+    @NotNull ImmutableSeq<Arg<Term>> args,
+    @NotNull UnaryOperator<Term> whnf
+  ) {
+    var scrutinees = MutableArrayList.<Term>create(args.size());
+    args.forEach(arg -> scrutinees.append(arg.term()));
+    var tree = this;
+    while (true) {
+      switch (tree) {
+        case Fail _ -> {
+          return Option.none();
+        }
+        case Leaf leaf -> {
+          var subst = new Subst();
+          leaf.binds.forEach(bind -> subst.addDirectly(bind.component1(), scrutinees.get(bind.component2())));
+          return Option.some(Tuple.of(leaf, subst));
+        }
+        case Unpack(var scrutinee, var arity, var then) -> {
+          if (!(whnf.apply(scrutinees.get(scrutinee)) instanceof TupTerm tup)) return Option.none();
+          assert tup.items().sizeEquals(arity);
+          tup.items().forEach(item -> scrutinees.append(item.term()));
+          tree = then;
+        }
+        case Split(var scrutinee, var branches, var fallback) -> {
+          var term = whnf.apply(scrutinees.get(scrutinee));
+          DefVar<CtorDef, TeleDecl.DataCtor> ref;
+          ImmutableSeq<Arg<Term>> conArgs;
+          switch (term) {
+            case ConCallLike con -> {
+              ref = con.ref();
+              conArgs = con.conArgs();
+            }
+            case ListTerm list -> {
+              ref = list.ctorRef();
+              conArgs = list.conArgs();
+            }
+            default -> {
+              return Option.none();
+            }
+          }
+          var branch = branches.getOrNull(ref);
+          if (branch == null) tree = fallback;
+          else {
+            conArgs.forEach(arg -> scrutinees.append(arg.term()));
+            tree = branch.component2();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @param arity the number of arguments the clauses are matched against
+   * @return null if the clauses contain patterns that are not supported (which should not be there after tycking),
+   * or if the tree grows too large
+   */
+  static @Nullable CaseTree compile(int arity, @NotNull ImmutableSeq<Term.Matching> clauses) {
+    var rows = MutableList.<Row>create();
+    for (var clause : clauses) {
+      if (!clause.patterns().sizeEquals(arity)) return null;
+      rows.append(new Row(clause.patterns().map(Arg::term), ImmutableSeq.empty(), clause.body()));
+    }
+    var compiler = new Compiler();
+    return compiler.compile(rows.toImmutableSeq(), ImmutableSeq.fill(arity, i -> i), arity);
+  }
+
+  /**
+   * A row of the clause matrix.
+   *
+   * @param pats  null stands for a wildcard
+   * @param binds pattern variables already bound to a scrutinee
+   */
+  record Row(
+    @NotNull ImmutableSeq<@Nullable Pat> pats,
+    @NotNull ImmutableSeq<Tuple2<LocalVar, Integer>> binds,
+    @NotNull Term body
+  ) {
+    private @NotNull Row bind(int column, int scrutinee, @NotNull ImmutableSeq<@Nullable Pat> replacement) {
+      var binds = pats.get(column) instanceof Pat.Bind(var bind, var type)
+        ? this.binds.appended(Tuple.of(bind, scrutinee)) : this.binds;
+      var newPats = pats.take(column).appendedAll(replacement).appendedAll(pats.drop(column + 1));
+      return new Row(newPats, binds, body);
+    }
+  }
+
+  final class Compiler {
+    private int size = 0;
+
+    /**
+     * @param scrutinees the scrutinee of each column
+     * @param next       the number of scrutinees available at this point
+     */
+    private @Nullable CaseTree compile(
+      @NotNull ImmutableSeq<Row> rows, @NotNull ImmutableSeq<Integer> scrutinees, int next
+    ) {
+      if (++size > MAX_SIZE) return null;
+      if (rows.isEmpty()) return Fail.INSTANCE;
+      var first = rows.getFirst();
+      var column = first.pats.indexWhere(p -> !isWildcard(p));
+      if (column == -1) {
+        var row = first;
+        for (int i = first.pats.size() - 1; i >= 0; i--) row = row.bind(i, scrutinees.get(i), ImmutableSeq.empty());
+        return new Leaf(row.body, row.binds);
+      }
+      var scrutinee = scrutinees.get(column);
+      return switch (constructorForm(first.pats.get(column))) {
+        case Pat.Tuple(var pats) -> {
+          var arity = pats.size();
+          var specialized = MutableList.<Row>create();
+          for (var row : rows) {
+            var pat = row.pats.get(column);
+            if (pat instanceof Pat.Tuple(var subPats))
+              specialized.append(row.bind(column, scrutinee, subPats.map(Arg::term)));
+            else if (isWildcard(pat)) specialized.append(row.bind(column, scrutinee, wildcards(arity)));
+            else yield null;
+          }
+          var then = compile(specialized.toImmutableSeq(), expand(scrutinees, column, next, arity), next + arity);
+          yield then == null ? null : new Unpack(scrutinee, arity, then);
+        }
+        case Pat.Ctor _ -> {
+          var branches = MutableLinkedHashMap.<DefVar<CtorDef, TeleDecl.DataCtor>, Tuple2<Integer, CaseTree>>of();
+          for (var row : rows) {
+            if (!(constructorForm(row.pats.get(column)) instanceof Pat.Ctor ctor)) continue;
+            if (branches.containsKey(ctor.ref())) continue;
+            var arity = ctor.params().size();
+            var specialized = MutableList.<Row>create();
+            for (var other : rows) {
+              var pat = constructorForm(other.pats.get(column));
+              if (pat instanceof Pat.Ctor otherCtor && otherCtor.ref() == ctor.ref())
+                specialized.append(other.bind(column, scrutinee, otherCtor.params().map(Arg::term)));
+              else if (isWildcard(pat)) specialized.append(other.bind(column, scrutinee, wildcards(arity)));
+            }
+            var tree = compile(specialized.toImmutableSeq(), expand(scrutinees, column, next, arity), next + arity);
+            if (tree == null) yield null;
+            branches.put(ctor.ref(), Tuple.of(arity, tree));
+          }
+          var fallback = compile(rows
+              .filter(row -> isWildcard(row.pats.get(column)))
+              .map(row -> row.bind(column, scrutinee, ImmutableSeq.empty())),
+            expand(scrutinees, column, next, 0), next);
+          yield fallback == null ? null : new Split(scrutinee, ImmutableMap.from(branches), fallback);
+        }
+        default -> null;
+      };
+    }
+
+    /** Replaces the scrutinee of a column with the arguments of the term inspected there. */
+    private static @NotNull ImmutableSeq<Integer> expand(
+      @NotNull ImmutableSeq<Integer> scrutinees, int column, int next, int arity
+    ) {
+      return scrutinees.take(column)
+        .appendedAll(ImmutableSeq.fill(arity, i -> next + i))
+        .appendedAll(scrutinees.drop(column + 1));
+    }
+
+    private static boolean isWildcard(@Nullable Pat pat) {
+      return pat == null || pat instanceof Pat.Bind;
+    }
+
+    private static @NotNull ImmutableSeq<@Nullable Pat> wildcards(int arity) {
+      var pats = MutableList.<Pat>create();
+      for (int i = 0; i < arity; i++) pats.append(null);
+      return pats.toImmutableSeq();
+    }
+
+    /** Literal patterns are expanded one constructor at a time. */
+    private static @Nullable Pat constructorForm(@Nullable Pat pat) {
+      return pat instanceof Pat.ShapedInt lit ? lit.constructorForm() : pat;
+    }
+  }
+}
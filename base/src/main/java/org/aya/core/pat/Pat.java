@@ -35,7 +35,7 @@ import org.jetbrains.annotations.Debug;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.function.IntUnaryOperator;
+import java.math.BigInteger;
 import java.util.function.UnaryOperator;
 
 /**
@@ -219,10 +219,14 @@ public sealed interface Pat extends AyaDocile {
   }
 
   record ShapedInt(
-    @Override int repr,
+    @Override @NotNull BigInteger repr,
     @Override @NotNull ShapeRecognition recognition,
     @NotNull DataCall type
   ) implements Pat, Shaped.Nat<Pat> {
+    public ShapedInt(int repr, @NotNull ShapeRecognition recognition, @NotNull DataCall type) {
+      this(BigInteger.valueOf(repr), recognition, type);
+    }
+
     public ShapedInt update(DataCall type) {
       return type == type() ? this : new ShapedInt(repr, recognition, type);
     }
@@ -253,13 +257,13 @@ public sealed interface Pat extends AyaDocile {
       return new Pat.Ctor(suc.ref, ImmutableSeq.of(pat), recognition, type);
     }
 
-    @Override public @NotNull Pat destruct(int repr) {
+    @Override public @NotNull Pat destruct(@NotNull BigInteger repr) {
       return new Pat.ShapedInt(repr, this.recognition, this.type);
     }
 
     @Override
-    public @NotNull ShapedInt map(@NotNull IntUnaryOperator f) {
-      return new ShapedInt(f.applyAsInt(repr), recognition, type);
+    public @NotNull ShapedInt map(@NotNull UnaryOperator<BigInteger> f) {
+      return new ShapedInt(f.apply(repr), recognition, type);
     }
   }
 
@@ -64,7 +64,10 @@ public record PatMatcher(@NotNull Subst subst, boolean inferMeta, @NotNull Unary
             visitList(ctor.params(), conCall.conArgs());
           }
           case MetaPatTerm metaPat -> solve(pat, metaPat);
-          case ListTerm litTerm -> match(ctor, litTerm.constructorForm());
+          case ListTerm litTerm -> {
+            if (ctor.ref() != litTerm.ctorRef()) throw new Mismatch(false);
+            visitList(ctor.params(), litTerm.conArgs());
+          }
           default -> throw new Mismatch(true);
         }
       }
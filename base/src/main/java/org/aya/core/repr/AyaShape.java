@@ -2,6 +2,7 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.core.repr;
 
+import kala.collection.immutable.ImmutableMap;
 import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableLinkedHashMap;
 import kala.collection.mutable.MutableMap;
@@ -10,6 +11,7 @@ import kala.control.Option;
 import kala.tuple.Tuple;
 import kala.tuple.Tuple2;
 import org.aya.core.def.GenericDef;
+import org.aya.ref.DefVar;
 import org.jetbrains.annotations.NotNull;
 
 import static org.aya.core.repr.CodeShape.*;
@@ -17,6 +19,7 @@ import static org.aya.core.repr.CodeShape.GlobalId.SUC;
 import static org.aya.core.repr.CodeShape.GlobalId.ZERO;
 import static org.aya.core.repr.CodeShape.LocalId.*;
 import static org.aya.core.repr.ParamShape.explicit;
+import static org.aya.core.repr.ParamShape.implicit;
 
 /**
  * @author kiva
@@ -28,7 +31,19 @@ public sealed interface AyaShape {
   @NotNull AyaShape LIST_SHAPE = AyaListShape.INSTANCE;
   @NotNull AyaShape PLUS_LEFT_SHAPE = AyaPlusFnLeftShape.INSTANCE;
   @NotNull AyaShape PLUS_RIGHT_SHAPE = AyaPlusFnShape.INSTANCE;
-  @NotNull ImmutableSeq<AyaShape> LITERAL_SHAPES = ImmutableSeq.of(NAT_SHAPE, LIST_SHAPE, PLUS_RIGHT_SHAPE);
+  @NotNull AyaShape MUL_SHAPE = AyaMulFnShape.INSTANCE;
+  @NotNull AyaShape MONUS_SHAPE = AyaMonusFnShape.INSTANCE;
+  @NotNull AyaShape DIV_HELPER_SHAPE = AyaDivHelperFnShape.INSTANCE;
+  @NotNull AyaShape MOD_HELPER_SHAPE = AyaModHelperFnShape.INSTANCE;
+  @NotNull AyaShape DIV_SHAPE = AyaDivFnShape.INSTANCE;
+  @NotNull AyaShape MOD_SHAPE = AyaModFnShape.INSTANCE;
+  @NotNull AyaShape BOOL_SHAPE = AyaBoolShape.INSTANCE;
+  @NotNull AyaShape LE_SHAPE = AyaLeFnShape.INSTANCE;
+  @NotNull AyaShape APPEND_SHAPE = AyaAppendFnShape.INSTANCE;
+  @NotNull AyaShape LENGTH_SHAPE = AyaLengthFnShape.INSTANCE;
+  @NotNull ImmutableSeq<AyaShape> LITERAL_SHAPES = ImmutableSeq.of(NAT_SHAPE, LIST_SHAPE, BOOL_SHAPE,
+    PLUS_RIGHT_SHAPE, MUL_SHAPE, MONUS_SHAPE, DIV_HELPER_SHAPE, MOD_HELPER_SHAPE, DIV_SHAPE, MOD_SHAPE,
+    LE_SHAPE, APPEND_SHAPE, LENGTH_SHAPE);
 
   enum AyaIntShape implements AyaShape {
     INSTANCE;
@@ -130,32 +145,431 @@ public sealed interface AyaShape {
     }
   }
 
+  enum AyaMulFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId PLUS = new LocalId("plus");
+
+    public static final @NotNull CodeShape FN_MUL = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Nat
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      TermShape.NameCall.of(TYPE),
+      Either.right(ImmutableSeq.of(
+        // | 0, b => 0
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.ShapedCtor.of(TYPE, ZERO), new PatShape.Bind(RHS)
+        ), new TermShape.CtorCall(TYPE, ZERO, ImmutableSeq.empty())),
+        // | suc a, b => b + _ a b
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(LHS))), new PatShape.Bind(RHS)
+        ), new TermShape.ShapeCall(PLUS, AyaPlusFnShape.FN_PLUS, ImmutableSeq.of(
+          TermShape.NameCall.of(RHS),
+          new TermShape.NameCall(FUNC, ImmutableSeq.of(
+            TermShape.NameCall.of(LHS),
+            TermShape.NameCall.of(RHS)
+          )))))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_MUL;
+    }
+  }
+
+  /** Truncated subtraction */
+  enum AyaMonusFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull CodeShape FN_MONUS = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Nat
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      TermShape.NameCall.of(TYPE),
+      Either.right(ImmutableSeq.of(
+        // | a, 0 => a
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(LHS), PatShape.ShapedCtor.of(TYPE, ZERO)
+        ), TermShape.NameCall.of(LHS)),
+        // | 0, suc _ => 0
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.ShapedCtor.of(TYPE, ZERO), new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(PatShape.Any.INSTANCE))
+        ), new TermShape.CtorCall(TYPE, ZERO, ImmutableSeq.empty())),
+        // | suc a, suc b => _ a b
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(LHS))),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(RHS)))
+        ), new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          TermShape.NameCall.of(LHS),
+          TermShape.NameCall.of(RHS)
+        )))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_MONUS;
+    }
+  }
+
+  /**
+   * The helper of truncated division, which is structurally recursive:
+   * {@code divHelper k m n j} is {@code k} plus the times {@code j} is reset to {@code m}
+   * while counting down {@code n}, so {@code divHelper 0 m n m} is {@code n / suc m}.
+   */
+  enum AyaDivHelperFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId K = new LocalId("k");
+    public static final @NotNull LocalId M = new LocalId("m");
+    public static final @NotNull LocalId N = new LocalId("n");
+    public static final @NotNull LocalId J = new LocalId("j");
+
+    public static final @NotNull CodeShape FN_DIV_HELPER = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Nat -> Nat -> Nat
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE)),
+        explicit(TermShape.NameCall.of(TYPE)),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      TermShape.NameCall.of(TYPE),
+      Either.right(ImmutableSeq.of(
+        // | k, _, 0, _ => k
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(K), PatShape.Any.INSTANCE, PatShape.ShapedCtor.of(TYPE, ZERO), PatShape.Any.INSTANCE
+        ), TermShape.NameCall.of(K)),
+        // | k, m, suc n, 0 => _ (suc k) m n m
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(K), new PatShape.Bind(M),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(N))), PatShape.ShapedCtor.of(TYPE, ZERO)
+        ), new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          new TermShape.CtorCall(TYPE, SUC, ImmutableSeq.of(TermShape.NameCall.of(K))),
+          TermShape.NameCall.of(M),
+          TermShape.NameCall.of(N),
+          TermShape.NameCall.of(M)
+        ))),
+        // | k, m, suc n, suc j => _ k m n j
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(K), new PatShape.Bind(M),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(N))),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(J)))
+        ), new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          TermShape.NameCall.of(K),
+          TermShape.NameCall.of(M),
+          TermShape.NameCall.of(N),
+          TermShape.NameCall.of(J)
+        )))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_DIV_HELPER;
+    }
+  }
+
+  /**
+   * The helper of modulo, {@code modHelper k m n j} counts {@code k} up and {@code j} down
+   * while counting down {@code n}, resetting them to {@code 0} and {@code m} when {@code j} runs out,
+   * so {@code modHelper 0 m n m} is {@code n % suc m}.
+   */
+  enum AyaModHelperFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull CodeShape FN_MOD_HELPER = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Nat -> Nat -> Nat
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE)),
+        explicit(TermShape.NameCall.of(TYPE)),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      TermShape.NameCall.of(TYPE),
+      Either.right(ImmutableSeq.of(
+        // | k, _, 0, _ => k
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(AyaDivHelperFnShape.K), PatShape.Any.INSTANCE,
+          PatShape.ShapedCtor.of(TYPE, ZERO), PatShape.Any.INSTANCE
+        ), TermShape.NameCall.of(AyaDivHelperFnShape.K)),
+        // | _, m, suc n, 0 => _ 0 m n m
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.Any.INSTANCE, new PatShape.Bind(AyaDivHelperFnShape.M),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(AyaDivHelperFnShape.N))),
+          PatShape.ShapedCtor.of(TYPE, ZERO)
+        ), new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          new TermShape.CtorCall(TYPE, ZERO, ImmutableSeq.empty()),
+          TermShape.NameCall.of(AyaDivHelperFnShape.M),
+          TermShape.NameCall.of(AyaDivHelperFnShape.N),
+          TermShape.NameCall.of(AyaDivHelperFnShape.M)
+        ))),
+        // | k, m, suc n, suc j => _ (suc k) m n j
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(AyaDivHelperFnShape.K), new PatShape.Bind(AyaDivHelperFnShape.M),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(AyaDivHelperFnShape.N))),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(AyaDivHelperFnShape.J)))
+        ), new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          new TermShape.CtorCall(TYPE, SUC, ImmutableSeq.of(TermShape.NameCall.of(AyaDivHelperFnShape.K))),
+          TermShape.NameCall.of(AyaDivHelperFnShape.M),
+          TermShape.NameCall.of(AyaDivHelperFnShape.N),
+          TermShape.NameCall.of(AyaDivHelperFnShape.J)
+        )))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_MOD_HELPER;
+    }
+  }
+
+  /** Truncated division, dividing by zero gives zero */
+  enum AyaDivFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId HELPER = new LocalId("divHelper");
+
+    public static final @NotNull CodeShape FN_DIV = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Nat
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      TermShape.NameCall.of(TYPE),
+      Either.right(ImmutableSeq.of(
+        // | _, 0 => 0
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.Any.INSTANCE, PatShape.ShapedCtor.of(TYPE, ZERO)
+        ), new TermShape.CtorCall(TYPE, ZERO, ImmutableSeq.empty())),
+        // | a, suc b => divHelper 0 b a b
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(LHS), new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(RHS)))
+        ), new TermShape.ShapeCall(HELPER, AyaDivHelperFnShape.FN_DIV_HELPER, ImmutableSeq.of(
+          new TermShape.CtorCall(TYPE, ZERO, ImmutableSeq.empty()),
+          TermShape.NameCall.of(RHS),
+          TermShape.NameCall.of(LHS),
+          TermShape.NameCall.of(RHS)
+        )))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_DIV;
+    }
+  }
+
+  /** Modulo, the remainder of dividing by zero is the dividend */
+  enum AyaModFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId HELPER = new LocalId("modHelper");
+
+    public static final @NotNull CodeShape FN_MOD = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Nat
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      TermShape.NameCall.of(TYPE),
+      Either.right(ImmutableSeq.of(
+        // | a, 0 => a
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(LHS), PatShape.ShapedCtor.of(TYPE, ZERO)
+        ), TermShape.NameCall.of(LHS)),
+        // | a, suc b => modHelper 0 b a b
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(LHS), new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(RHS)))
+        ), new TermShape.ShapeCall(HELPER, AyaModHelperFnShape.FN_MOD_HELPER, ImmutableSeq.of(
+          new TermShape.CtorCall(TYPE, ZERO, ImmutableSeq.empty()),
+          TermShape.NameCall.of(RHS),
+          TermShape.NameCall.of(LHS),
+          TermShape.NameCall.of(RHS)
+        )))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_MOD;
+    }
+  }
+
+  /**
+   * Two constructors without parameters. Which one is {@link GlobalId#TRUE} is decided by their order,
+   * so the functions returning a Bool are only recognized when they agree with it, see {@link AyaLeFnShape}.
+   */
+  enum AyaBoolShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull CodeShape DATA_BOOL = new DataShape(
+      DATA,
+      ImmutableSeq.empty(), ImmutableSeq.of(
+      new CtorShape(GlobalId.TRUE, ImmutableSeq.empty()),
+      new CtorShape(GlobalId.FALSE, ImmutableSeq.empty())
+    ));
+
+    @Override public @NotNull CodeShape codeShape() {
+      return DATA_BOOL;
+    }
+  }
+
+  enum AyaLeFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId BOOL = new LocalId("Bool");
+
+    public static final @NotNull CodeShape FN_LE = new FnShape(
+      FUNC,
+      // _ : Nat -> Nat -> Bool
+      ImmutableSeq.of(
+        explicit(new TermShape.ShapeCall(TYPE, AyaIntShape.DATA_NAT, ImmutableSeq.empty())),
+        explicit(TermShape.NameCall.of(TYPE))
+      ),
+      new TermShape.ShapeCall(BOOL, AyaBoolShape.DATA_BOOL, ImmutableSeq.empty()),
+      Either.right(ImmutableSeq.of(
+        // | 0, _ => true
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.ShapedCtor.of(TYPE, ZERO), PatShape.Any.INSTANCE
+        ), new TermShape.CtorCall(BOOL, GlobalId.TRUE, ImmutableSeq.empty())),
+        // | suc _, 0 => false
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(PatShape.Any.INSTANCE)), PatShape.ShapedCtor.of(TYPE, ZERO)
+        ), new TermShape.CtorCall(BOOL, GlobalId.FALSE, ImmutableSeq.empty())),
+        // | suc a, suc b => _ a b
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(LHS))),
+          new PatShape.ShapedCtor(TYPE, SUC, ImmutableSeq.of(new PatShape.Bind(RHS)))
+        ), new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          TermShape.NameCall.of(LHS),
+          TermShape.NameCall.of(RHS)
+        )))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_LE;
+    }
+  }
+
+  enum AyaAppendFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId X = new LocalId("x");
+
+    public static final @NotNull CodeShape FN_APPEND = new FnShape(
+      FUNC,
+      // _ : {A : Type} -> List A -> List A -> List A
+      ImmutableSeq.of(
+        implicit(AyaListShape.A, new TermShape.Sort(null, 0)),
+        explicit(new TermShape.ShapeCall(TYPE, AyaListShape.DATA_LIST, ImmutableSeq.of(TermShape.NameCall.of(AyaListShape.A)))),
+        explicit(new TermShape.NameCall(TYPE, ImmutableSeq.of(TermShape.NameCall.of(AyaListShape.A))))
+      ),
+      new TermShape.NameCall(TYPE, ImmutableSeq.of(TermShape.NameCall.of(AyaListShape.A))),
+      Either.right(ImmutableSeq.of(
+        // | nil, ys => ys
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(AyaListShape.A), PatShape.ShapedCtor.of(TYPE, GlobalId.NIL), new PatShape.Bind(RHS)
+        ), TermShape.NameCall.of(RHS)),
+        // | cons x xs, ys => cons x (_ xs ys)
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(AyaListShape.A),
+          new PatShape.ShapedCtor(TYPE, GlobalId.CONS, ImmutableSeq.of(new PatShape.Bind(X), new PatShape.Bind(LHS))),
+          new PatShape.Bind(RHS)
+        ), new TermShape.CtorCall(TYPE, GlobalId.CONS, ImmutableSeq.of(
+          TermShape.NameCall.of(AyaListShape.A),
+          TermShape.NameCall.of(X),
+          new TermShape.NameCall(FUNC, ImmutableSeq.of(
+            TermShape.NameCall.of(AyaListShape.A),
+            TermShape.NameCall.of(LHS),
+            TermShape.NameCall.of(RHS)
+          )))))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_APPEND;
+    }
+  }
+
+  enum AyaLengthFnShape implements AyaShape {
+    INSTANCE;
+
+    public static final @NotNull LocalId NAT = new LocalId("Nat");
+
+    public static final @NotNull CodeShape FN_LENGTH = new FnShape(
+      FUNC,
+      // _ : {A : Type} -> List A -> Nat
+      ImmutableSeq.of(
+        implicit(AyaListShape.A, new TermShape.Sort(null, 0)),
+        explicit(new TermShape.ShapeCall(TYPE, AyaListShape.DATA_LIST, ImmutableSeq.of(TermShape.NameCall.of(AyaListShape.A))))
+      ),
+      new TermShape.ShapeCall(NAT, AyaIntShape.DATA_NAT, ImmutableSeq.empty()),
+      Either.right(ImmutableSeq.of(
+        // | nil => 0
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(AyaListShape.A), PatShape.ShapedCtor.of(TYPE, GlobalId.NIL)
+        ), new TermShape.CtorCall(NAT, ZERO, ImmutableSeq.empty())),
+        // | cons _ xs => suc (_ xs)
+        new ClauseShape(ImmutableSeq.of(
+          new PatShape.Bind(AyaListShape.A),
+          new PatShape.ShapedCtor(TYPE, GlobalId.CONS, ImmutableSeq.of(PatShape.Any.INSTANCE, new PatShape.Bind(LHS)))
+        ), new TermShape.CtorCall(NAT, SUC, ImmutableSeq.of(new TermShape.NameCall(FUNC, ImmutableSeq.of(
+          TermShape.NameCall.of(AyaListShape.A),
+          TermShape.NameCall.of(LHS)
+        )))))
+      ))
+    );
+
+    @Override
+    public @NotNull CodeShape codeShape() {
+      return FN_LENGTH;
+    }
+  }
+
+  /** Synchronized, since the SCCs of a module may be checked concurrently, see {@link org.aya.tyck.order.ParallelOrgaTycker} */
   class Factory {
     public @NotNull MutableMap<GenericDef, ShapeRecognition> discovered = MutableLinkedHashMap.of();
 
-    public @NotNull ImmutableSeq<Tuple2<GenericDef, ShapeRecognition>> findImpl(@NotNull AyaShape shape) {
+    public synchronized @NotNull ImmutableSeq<Tuple2<GenericDef, ShapeRecognition>> findImpl(@NotNull AyaShape shape) {
       return discovered.view().map(Tuple::of)
         .filter(t -> t.component2().shape() == shape)
         .toImmutableSeq();
     }
 
-    public @NotNull Option<ShapeRecognition> find(@NotNull GenericDef def) {
+    public synchronized @NotNull Option<ShapeRecognition> find(@NotNull GenericDef def) {
       return discovered.getOption(def);
     }
 
-    public void bonjour(@NotNull GenericDef def, @NotNull ShapeRecognition shape) {
+    public synchronized void bonjour(@NotNull GenericDef def, @NotNull ShapeRecognition shape) {
       // TODO[literal]: what if a def has multiple shapes?
       discovered.put(def, shape);
     }
 
     /** Discovery of shaped literals */
-    public void bonjour(@NotNull GenericDef def) {
+    public synchronized void bonjour(@NotNull GenericDef def) {
+      // The shapes of functions refer to the shapes discovered before, like the Nat in the type of plus
+      var known = ImmutableMap.<DefVar<?, ?>, ShapeRecognition>from(discovered.view()
+        .map((d, recog) -> Tuple.of(d.ref(), recog)));
       AyaShape.LITERAL_SHAPES.view()
-        .flatMap(shape -> new ShapeMatcher().match(shape, def))
+        .flatMap(shape -> new ShapeMatcher(known).match(shape, def))
         .forEach(shape -> bonjour(def, shape));
     }
 
-    public void importAll(@NotNull Factory other) {
+    public synchronized void importAll(@NotNull Factory other) {
       discovered.putAll(other.discovered);
     }
   }
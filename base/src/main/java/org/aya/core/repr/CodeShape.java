@@ -22,7 +22,7 @@ public sealed interface CodeShape {
   }
 
   enum GlobalId implements MomentId, Serializable {
-    ZERO, SUC, NIL, CONS,
+    ZERO, SUC, NIL, CONS, TRUE, FALSE,
   }
 
   record LocalId(@NotNull String name) implements MomentId {
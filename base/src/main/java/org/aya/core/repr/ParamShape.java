@@ -31,7 +31,11 @@ sealed public interface ParamShape {
   }
 
   static @NotNull ParamShape implicit(@NotNull TermShape type) {
-    return new Licit(CodeShape.LocalId.IGNORED, type, Licit.Kind.Im);
+    return implicit(CodeShape.LocalId.IGNORED, type);
+  }
+
+  static @NotNull ParamShape implicit(@NotNull CodeShape.LocalId name, @NotNull TermShape type) {
+    return new Licit(name, type, Licit.Kind.Im);
   }
 
   static @NotNull ParamShape anyLicit(@NotNull CodeShape.LocalId name, @NotNull TermShape type) {
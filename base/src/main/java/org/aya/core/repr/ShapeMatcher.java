@@ -158,6 +158,9 @@ public record ShapeMatcher(
         captures.put(name, ignored.bind());
         yield true;
       }
+      // Literal patterns are matched as constructors
+      case MatchPat(PatShape.CtorLike ctorLike, Pat.ShapedInt lit) ->
+        matchPat(new MatchPat(ctorLike, lit.constructorForm()));
       case MatchPat(PatShape.CtorLike ctorLike, Pat.Ctor ctor) -> {
         boolean matched = true;
 
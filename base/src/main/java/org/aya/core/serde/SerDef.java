@@ -159,7 +159,7 @@ public sealed interface SerDef extends Serializable {
 
   /** serialized {@link AyaShape} */
   enum SerAyaShape implements Serializable {
-    NAT, LIST, PLUSL, PLUSR;
+    NAT, LIST, PLUSL, PLUSR, MUL, MONUS, DIVH, MODH, DIV, MOD, BOOL, LE, APPEND, LENGTH;
 
     public @NotNull AyaShape de() {
       return switch (this) {
@@ -167,6 +167,16 @@ public sealed interface SerDef extends Serializable {
         case LIST -> AyaShape.LIST_SHAPE;
         case PLUSL -> AyaShape.PLUS_LEFT_SHAPE;
         case PLUSR -> AyaShape.PLUS_RIGHT_SHAPE;
+        case MUL -> AyaShape.MUL_SHAPE;
+        case MONUS -> AyaShape.MONUS_SHAPE;
+        case DIVH -> AyaShape.DIV_HELPER_SHAPE;
+        case MODH -> AyaShape.MOD_HELPER_SHAPE;
+        case DIV -> AyaShape.DIV_SHAPE;
+        case MOD -> AyaShape.MOD_SHAPE;
+        case BOOL -> AyaShape.BOOL_SHAPE;
+        case LE -> AyaShape.LE_SHAPE;
+        case APPEND -> AyaShape.APPEND_SHAPE;
+        case LENGTH -> AyaShape.LENGTH_SHAPE;
       };
     }
 
@@ -175,6 +185,16 @@ public sealed interface SerDef extends Serializable {
       if (shape == AyaShape.LIST_SHAPE) return LIST;
       if (shape == AyaShape.PLUS_LEFT_SHAPE) return PLUSL;
       if (shape == AyaShape.PLUS_RIGHT_SHAPE) return PLUSR;
+      if (shape == AyaShape.MUL_SHAPE) return MUL;
+      if (shape == AyaShape.MONUS_SHAPE) return MONUS;
+      if (shape == AyaShape.DIV_HELPER_SHAPE) return DIVH;
+      if (shape == AyaShape.MOD_HELPER_SHAPE) return MODH;
+      if (shape == AyaShape.DIV_SHAPE) return DIV;
+      if (shape == AyaShape.MOD_SHAPE) return MOD;
+      if (shape == AyaShape.BOOL_SHAPE) return BOOL;
+      if (shape == AyaShape.LE_SHAPE) return LE;
+      if (shape == AyaShape.APPEND_SHAPE) return APPEND;
+      if (shape == AyaShape.LENGTH_SHAPE) return LENGTH;
       throw new InternalException("unexpected shape: " + shape.getClass());
     }
   }
@@ -11,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.math.BigInteger;
 
 /**
  * @author ice1000
@@ -59,7 +60,7 @@ public sealed interface SerPat extends Serializable {
   }
 
   record ShapedInt(
-    int integer,
+    @NotNull BigInteger integer,
     boolean explicit,
     @NotNull SerDef.SerShapeResult shape,
     @NotNull SerTerm.Data type
@@ -23,13 +23,16 @@ import org.aya.ref.DefVar;
 import org.aya.ref.LocalVar;
 import org.aya.util.Arg;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.math.BigInteger;
 
 /**
  * @author ice1000
  */
 public sealed interface SerTerm extends Serializable, Restr.TermLike<SerTerm> {
+  /** Shared by all the compiled cores of a library build, which may load them from several threads */
   record DeState(
     @NotNull MutableMap<Seq<String>, MutableMap<String, DefVar<?, ?>>> defCache,
     @NotNull MutableMap<Integer, LocalVar> localCache,
@@ -39,11 +42,11 @@ public sealed interface SerTerm extends Serializable, Restr.TermLike<SerTerm> {
       this(MutableMap.create(), MutableMap.create(), primFactory);
     }
 
-    public @NotNull LocalVar var(@NotNull SimpVar var) {
+    public synchronized @NotNull LocalVar var(@NotNull SimpVar var) {
       return localCache.getOrPut(var.var, () -> new LocalVar(var.name));
     }
 
-    @SuppressWarnings("unchecked") public <V extends DefVar<?, ?>>
+    @SuppressWarnings("unchecked") public synchronized <V extends DefVar<?, ?>>
     @NotNull V resolve(@NotNull SerDef.QName name) {
       return (V) defCache
         .getOrPut(name.mod(), MutableHashMap::new)
@@ -59,7 +62,7 @@ public sealed interface SerTerm extends Serializable, Restr.TermLike<SerTerm> {
       return resolve(name);
     }
 
-    public void putPrim(
+    public synchronized void putPrim(
       @NotNull ImmutableSeq<String> mod,
       @NotNull ImmutableSeq<String> fileMod,
       @NotNull PrimDef.ID id,
@@ -255,7 +258,7 @@ public sealed interface SerTerm extends Serializable, Restr.TermLike<SerTerm> {
   }
 
   record ShapedInt(
-    int integer,
+    @NotNull BigInteger integer,
     @NotNull SerDef.SerShapeResult shape,
     @NotNull SerTerm.Data type
   ) implements SerTerm {
@@ -352,7 +355,7 @@ public sealed interface SerTerm extends Serializable, Restr.TermLike<SerTerm> {
 
   /// region ShapedApplicable
 
-  sealed interface SerShapedApplicable extends Serializable permits SerIntegerOps {
+  sealed interface SerShapedApplicable extends Serializable permits SerIntegerOps, SerLeOps, SerListOps {
     @NotNull Shaped.Applicable<Term, ?, ?> deShape(@NotNull DeState state);
   }
 
@@ -374,5 +377,31 @@ public sealed interface SerTerm extends Serializable, Restr.TermLike<SerTerm> {
     }
   }
 
+  /** @param bool the result type of {@link IntegerOps.LeRule} */
+  record SerLeOps(@NotNull SerDef.QName ref, @NotNull ConInfo bool) implements SerShapedApplicable {
+    @Override
+    public @NotNull Shaped.Applicable<Term, ?, ?> deShape(@NotNull DeState state) {
+      return new IntegerOps.LeRule(state.resolve(ref), bool.result.de(state), bool.data.de(state));
+    }
+  }
+
+  /** @param nat the result type of {@link ListOps.Length} */
+  record SerListOps(
+    @NotNull SerDef.QName ref,
+    @NotNull ListOps.Kind kind,
+    @Nullable ConInfo nat
+  ) implements SerShapedApplicable {
+    @Override
+    public @NotNull Shaped.Applicable<Term, ?, ?> deShape(@NotNull DeState state) {
+      return switch (kind) {
+        case Append -> new ListOps.Append(state.resolve(ref));
+        case Length -> {
+          assert nat != null;
+          yield new ListOps.Length(state.resolve(ref), nat.result.de(state), nat.data.de(state));
+        }
+      };
+    }
+  }
+
   /// endregion ShapedApplicable
 }
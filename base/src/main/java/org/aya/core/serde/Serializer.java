@@ -195,6 +195,13 @@ public record Serializer(
           SerDef.SerShapeResult.serialize(state, conRule.paramRecognition()), (SerTerm.Data) serialize(conRule.paramType())
         )));
       case IntegerOps.FnRule fnRule -> new SerTerm.SerIntegerOps(state.def(fnRule.ref()), Either.right(fnRule.kind()));
+      case IntegerOps.LeRule le -> new SerTerm.SerLeOps(state.def(le.ref()), new SerTerm.ConInfo(
+        SerDef.SerShapeResult.serialize(state, le.boolRecognition()), (SerTerm.Data) serialize(le.boolType())
+      ));
+      case ListOps.Append append -> new SerTerm.SerListOps(state.def(append.ref()), append.kind(), null);
+      case ListOps.Length length -> new SerTerm.SerListOps(state.def(length.ref()), length.kind(), new SerTerm.ConInfo(
+        SerDef.SerShapeResult.serialize(state, length.natRecognition()), (SerTerm.Data) serialize(length.natType())
+      ));
       default -> throw new IllegalStateException("Unexpected value: " + shapedApplicable);
     };
   }
@@ -212,7 +219,7 @@ public record Serializer(
       this(MutableMap.create());
     }
 
-    public @NotNull SerTerm.SimpVar local(@NotNull LocalVar var) {
+    public synchronized @NotNull SerTerm.SimpVar local(@NotNull LocalVar var) {
       return new SerTerm.SimpVar(localCache.getOrPut(var, localCache::size), var.name());
     }
 
@@ -16,6 +16,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.math.BigInteger;
 
 /**
  * IntegerOps acts like a DefVar with special reduce rule. So it is not a {@link Term}.
@@ -50,45 +51,79 @@ public sealed interface IntegerOps<Core extends Def, Concrete extends TeleDecl<?
       assert args.sizeEquals(1);
       var arg = args.get(0).term();
       if (arg instanceof IntegerTerm intTerm) {
-        return intTerm.map(x -> x + 1);
+        return intTerm.map(x -> x.add(BigInteger.ONE));
       }
 
       return null;
     }
   }
 
+  /**
+   * Functions on Nat computed on {@link IntegerTerm}s, the arguments of which are all Nat.
+   *
+   * @see org.aya.core.repr.AyaShape#DIV_HELPER_SHAPE
+   * @see org.aya.core.repr.AyaShape#MOD_HELPER_SHAPE
+   */
   record FnRule(
     @Override @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref,
     @NotNull Kind kind
   ) implements IntegerOps<FnDef, TeleDecl.FnDecl> {
     public enum Kind implements Serializable {
-      Add, SubTrunc
+      Add, SubTrunc, Mul, Div, Mod, DivHelper, ModHelper
     }
 
     @Override
     public @Nullable Term apply(@NotNull ImmutableSeq<Arg<Term>> args) {
+      assert args.sizeEquals(kind == Kind.DivHelper || kind == Kind.ModHelper ? 4 : 2);
+      if (!args.allMatch(arg -> arg.term() instanceof IntegerTerm)) return null;
+      var ita = (IntegerTerm) args.get(0).term();
+      var ints = args.view().drop(1).map(arg -> ((IntegerTerm) arg.term()).repr()).toImmutableSeq();
+      var rhs = ints.get(0);
       return switch (kind) {
-        case Add -> {
-          assert args.sizeEquals(2);
-          var a = args.get(0).term();
-          var b = args.get(1).term();
-          if (a instanceof IntegerTerm ita && b instanceof IntegerTerm itb) {
-            yield ita.map(x -> x + itb.repr());
-          }
-
-          yield null;
-        }
-        case SubTrunc -> {
-          assert args.sizeEquals(2);
-          var a = args.get(0).term();
-          var b = args.get(1).term();
-          if (a instanceof IntegerTerm ita && b instanceof IntegerTerm itb) {
-            yield ita.map(x -> Math.max(x - itb.repr(), 0));
-          }
-
-          yield null;
-        }
+        case Add -> ita.map(x -> x.add(rhs));
+        case SubTrunc -> ita.map(x -> x.subtract(rhs).max(BigInteger.ZERO));
+        case Mul -> ita.map(x -> x.multiply(rhs));
+        case Div -> ita.map(x -> rhs.signum() == 0 ? BigInteger.ZERO : x.divide(rhs));
+        case Mod -> ita.map(x -> rhs.signum() == 0 ? x : x.mod(rhs));
+        // k + (n - j - 1) / (m + 1) + 1 if n > j, that is one more for every time j is reset
+        case DivHelper -> ita.map(k -> {
+          var m = ints.get(0);
+          var n = ints.get(1);
+          var j = ints.get(2);
+          if (n.compareTo(j) <= 0) return k;
+          return k.add(n.subtract(j).subtract(BigInteger.ONE).divide(m.add(BigInteger.ONE))).add(BigInteger.ONE);
+        });
+        // (n - j - 1) % (m + 1) if n > j, that is the count since j is last reset
+        case ModHelper -> ita.map(k -> {
+          var m = ints.get(0);
+          var n = ints.get(1);
+          var j = ints.get(2);
+          if (n.compareTo(j) <= 0) return k.add(n);
+          return n.subtract(j).subtract(BigInteger.ONE).mod(m.add(BigInteger.ONE));
+        });
       };
     }
   }
+
+  /**
+   * The ordering of Nat, computed on {@link IntegerTerm}s.
+   *
+   * @param boolRecognition the recognition of the result type
+   * @param boolType        the result type
+   * @see org.aya.core.repr.AyaShape#LE_SHAPE
+   */
+  record LeRule(
+    @Override @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref,
+    @NotNull ShapeRecognition boolRecognition,
+    @NotNull DataCall boolType
+  ) implements IntegerOps<FnDef, TeleDecl.FnDecl> {
+    @SuppressWarnings("unchecked") @Override
+    public @Nullable Term apply(@NotNull ImmutableSeq<Arg<Term>> args) {
+      assert args.sizeEquals(2);
+      if (!(args.get(0).term() instanceof IntegerTerm a && args.get(1).term() instanceof IntegerTerm b)) return null;
+      var id = a.repr().compareTo(b.repr()) <= 0 ? CodeShape.GlobalId.TRUE : CodeShape.GlobalId.FALSE;
+      var ctor = (DefVar<CtorDef, TeleDecl.DataCtor>) boolRecognition.captures().get(id);
+      return new ConCall(boolType.ref(), ctor, ImmutableSeq.empty(), boolType.ulift(), ImmutableSeq.empty());
+    }
+  }
 }
@@ -11,24 +11,28 @@ import org.aya.generic.Shaped;
 import org.aya.util.Arg;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.function.IntUnaryOperator;
+import java.math.BigInteger;
 import java.util.function.UnaryOperator;
 
 /**
  * An efficient represent for Nat
  */
 public record IntegerTerm(
-  @Override int repr,
+  @Override @NotNull BigInteger repr,
   @Override @NotNull ShapeRecognition recognition,
   @Override @NotNull DataCall type
 ) implements StableWHNF, Shaped.Nat<Term>, ConCallLike {
   public IntegerTerm {
-    assert repr >= 0;
+    assert repr.signum() >= 0;
+  }
+
+  public IntegerTerm(int repr, @NotNull ShapeRecognition recognition, @NotNull DataCall type) {
+    this(BigInteger.valueOf(repr), recognition, type);
   }
 
   @Override
   public @NotNull ConCall.Head head() {
-    var ref = repr == 0
+    var ref = repr.signum() == 0
       ? ctorRef(CodeShape.GlobalId.ZERO)
       : ctorRef(CodeShape.GlobalId.SUC);
 
@@ -37,14 +41,14 @@ public record IntegerTerm(
 
   @Override
   public @NotNull ImmutableSeq<Arg<Term>> conArgs() {
-    if (repr == 0) {
+    if (repr.signum() == 0) {
       return ImmutableSeq.empty();
     }
 
     var ctorTele = head().ref().core.selfTele;
     assert ctorTele.sizeEquals(1);
 
-    return ImmutableSeq.of(new Arg<>(new IntegerTerm(repr - 1, recognition, type), ctorTele.getFirst().explicit()));
+    return ImmutableSeq.of(new Arg<>(new IntegerTerm(repr.subtract(BigInteger.ONE), recognition, type), ctorTele.getFirst().explicit()));
   }
 
   @Override public @NotNull IntegerTerm descent(@NotNull UnaryOperator<Term> f, @NotNull UnaryOperator<Pat> g) {
@@ -58,7 +62,7 @@ public record IntegerTerm(
   }
 
   @Override public @NotNull Term makeZero(@NotNull CtorDef zero) {
-    return map(x -> 0);
+    return map(x -> BigInteger.ZERO);
   }
 
   @Override public @NotNull Term makeSuc(@NotNull CtorDef suc, @NotNull Arg<Term> term) {
@@ -66,12 +70,12 @@ public record IntegerTerm(
       0, ImmutableSeq.empty(), ImmutableSeq.of(term));
   }
 
-  @Override public @NotNull Term destruct(int repr) {
+  @Override public @NotNull Term destruct(@NotNull BigInteger repr) {
     return new IntegerTerm(repr, this.recognition, this.type);
   }
 
   @Override
-  public @NotNull IntegerTerm map(@NotNull IntUnaryOperator f) {
-    return new IntegerTerm(f.applyAsInt(repr), recognition, type);
+  public @NotNull IntegerTerm map(@NotNull UnaryOperator<BigInteger> f) {
+    return new IntegerTerm(f.apply(repr), recognition, type);
   }
 }
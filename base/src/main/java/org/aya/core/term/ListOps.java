@@ -0,0 +1,73 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.term;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.concrete.stmt.decl.TeleDecl;
+import org.aya.core.def.FnDef;
+import org.aya.core.repr.ShapeRecognition;
+import org.aya.generic.Shaped;
+import org.aya.ref.DefVar;
+import org.aya.util.Arg;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Functions on lists that are computed on {@link ListTerm} directly, like {@link IntegerOps} for Nat.
+ * The first argument is always the (implicit) element type.
+ *
+ * @see org.aya.core.repr.AyaShape#APPEND_SHAPE
+ * @see org.aya.core.repr.AyaShape#LENGTH_SHAPE
+ */
+public sealed interface ListOps extends Shaped.Applicable<Term, FnDef, TeleDecl.FnDecl> {
+  enum Kind implements Serializable {
+    Append, Length
+  }
+
+  @NotNull Kind kind();
+
+  @Override default @NotNull Term type() {
+    var core = ref().core;
+    assert core != null;
+    return PiTerm.make(core.telescope(), core.result());
+  }
+
+  record Append(@Override @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref) implements ListOps {
+    @Override public @NotNull Kind kind() {
+      return Kind.Append;
+    }
+
+    @Override public @Nullable Term apply(@NotNull ImmutableSeq<Arg<Term>> args) {
+      assert args.sizeEquals(3);
+      if (!(args.get(1).term() instanceof ListTerm xs)) return null;
+      var ys = args.get(2).term();
+      // This is the first clause, which applies no matter what ys is
+      if (xs.repr().isEmpty()) return ys;
+      if (!(ys instanceof ListTerm list)) return null;
+      return xs.destruct(xs.repr().appendedAll(list.repr()));
+    }
+  }
+
+  /**
+   * @param natRecognition the recognition of the result type
+   * @param natType        the result type
+   */
+  record Length(
+    @Override @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref,
+    @NotNull ShapeRecognition natRecognition,
+    @NotNull DataCall natType
+  ) implements ListOps {
+    @Override public @NotNull Kind kind() {
+      return Kind.Length;
+    }
+
+    @Override public @Nullable Term apply(@NotNull ImmutableSeq<Arg<Term>> args) {
+      assert args.sizeEquals(2);
+      if (!(args.get(1).term() instanceof ListTerm xs)) return null;
+      return new IntegerTerm(BigInteger.valueOf(xs.repr().size()), natRecognition, natType);
+    }
+  }
+}
@@ -3,10 +3,14 @@
 package org.aya.core.term;
 
 import kala.collection.immutable.ImmutableSeq;
+import kala.collection.immutable.ImmutableVector;
+import org.aya.concrete.stmt.decl.TeleDecl;
 import org.aya.core.def.CtorDef;
 import org.aya.core.pat.Pat;
+import org.aya.core.repr.CodeShape;
 import org.aya.core.repr.ShapeRecognition;
 import org.aya.generic.Shaped;
+import org.aya.ref.DefVar;
 import org.aya.util.Arg;
 import org.jetbrains.annotations.NotNull;
 
@@ -17,6 +21,15 @@ public record ListTerm(
   @Override @NotNull ShapeRecognition recognition,
   @Override @NotNull DataCall type
 ) implements StableWHNF, Shaped.List<Term> {
+  /**
+   * The elements are kept in a persistent vector, so that taking the tail of a list
+   * (which happens every time a list literal is matched against a cons pattern)
+   * and appending two lists do not copy the elements.
+   */
+  public ListTerm {
+    if (!(repr instanceof ImmutableVector<Term>)) repr = ImmutableVector.from(repr);
+  }
+
   public @NotNull ListTerm update(@NotNull DataCall type, @NotNull ImmutableSeq<Term> repr) {
     return type == type() && repr.sameElements(repr(), true) ? this : new ListTerm(repr, recognition, type);
   }
@@ -36,6 +49,23 @@ public record ListTerm(
       ImmutableSeq.of(x, last));
   }
 
+  /** @return the constructor this list would be if it were written as constructor calls */
+  @SuppressWarnings("unchecked") public @NotNull DefVar<CtorDef, TeleDecl.DataCtor> ctorRef() {
+    return (DefVar<CtorDef, TeleDecl.DataCtor>) ctorRef(repr.isEmpty() ? CodeShape.GlobalId.NIL : CodeShape.GlobalId.CONS);
+  }
+
+  /**
+   * The arguments of {@link #ctorRef()}, like the ones of {@link #constructorForm()},
+   * without constructing the constructor call.
+   */
+  public @NotNull ImmutableSeq<Arg<Term>> conArgs() {
+    if (repr.isEmpty()) return ImmutableSeq.empty();
+    var tele = ctorRef().core.selfTele;
+    return ImmutableSeq.of(
+      new Arg<>(repr.getFirst(), tele.get(0).explicit()),
+      new Arg<>(destruct(repr.drop(1)), tele.get(1).explicit()));
+  }
+
   @Override
   public @NotNull Term destruct(@NotNull ImmutableSeq<Term> repr) {
     return new ListTerm(repr, recognition, type());
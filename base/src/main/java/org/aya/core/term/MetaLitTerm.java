@@ -12,6 +12,7 @@ import org.aya.core.repr.ShapeRecognition;
 import org.aya.util.error.SourcePos;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigInteger;
 import java.util.function.UnaryOperator;
 
 public record MetaLitTerm(
@@ -32,7 +33,7 @@ public record MetaLitTerm(
     if (!(type instanceof DataCall dataCall)) return this;
     return candidates.find(t -> t.component1().ref() == dataCall.ref()).flatMap(t -> {
       var shape = t.component2().shape();
-      if (shape == AyaShape.NAT_SHAPE) return Option.some(new IntegerTerm((int) repr, t.component2(), dataCall));
+      if (shape == AyaShape.NAT_SHAPE) return Option.some(new IntegerTerm((BigInteger) repr, t.component2(), dataCall));
       if (shape == AyaShape.LIST_SHAPE) return Option.some(new ListTerm((ImmutableSeq<Term>) repr, t.component2(), dataCall));
       return Option.<Term>none();
     }).getOrDefault(this);
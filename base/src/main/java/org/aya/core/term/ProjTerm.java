@@ -27,7 +27,7 @@ public record ProjTerm(@NotNull Term of, int ix) implements Elimination {
   projSubst(@NotNull Term term, int index, ImmutableSeq<Param> telescope, Subst subst) {
     // instantiate the type
     telescope.view().take(index).forEachIndexed((i, param) ->
-      subst.add(param.ref(), new ProjTerm(term, i + 1)));
+      subst.addDirectly(param.ref(), new ProjTerm(term, i + 1)));
     return subst;
   }
 
@@ -7,6 +7,7 @@ import kala.collection.mutable.MutableArrayList;
 import kala.collection.mutable.MutableList;
 import org.aya.core.pat.Pat;
 import org.aya.core.visitor.Subst;
+import org.aya.core.visitor.TeleInstantiator;
 import org.aya.generic.SortKind;
 import org.aya.ref.LocalVar;
 import org.aya.util.Arg;
@@ -58,7 +59,7 @@ public record SigmaTerm(@NotNull ImmutableSeq<@NotNull Param> params) implements
       UnaryOperator<Term> fill = s -> AppTerm.make(new CoeTerm(An, coe.r(), s),
         new Arg<>(tn, true));
 
-      subst.add(param.ref(), fill.apply(i.toTerm()));
+      subst.addDirectly(param.ref(), fill.apply(i.toTerm()));
       items.append(new Arg<>(fill.apply(coe.s()), param.explicit()));
     }
     return new LamTerm(new LamTerm.Param(t.var(), true),
@@ -72,19 +73,15 @@ public record SigmaTerm(@NotNull ImmutableSeq<@NotNull Param> params) implements
    */
   public <T> @Nullable TupTerm check(@NotNull ImmutableSeq<? extends T> it, @NotNull BiFunction<T, Term, Term> inherit) {
     var items = MutableList.<Arg<Term>>create();
-    var againstTele = params.view();
-    var subst = new Subst();
+    var againstTele = new TeleInstantiator(params);
     for (var iter = it.iterator(); iter.hasNext(); ) {
       var item = iter.next();
-      var first = againstTele.getFirst().subst(subst);
+      var first = againstTele.current();
       var result = inherit.apply(item, first.type());
       items.append(new Arg<>(result, first.explicit()));
-      var ref = first.ref();
-      againstTele = againstTele.drop(1);
-      if (againstTele.isNotEmpty())
-        // LGTM! The show must go on
-        subst.add(ref, result);
-      else if (iter.hasNext())
+      againstTele.bind(result);
+      // LGTM! The show must go on
+      if (!againstTele.hasNext() && iter.hasNext())
         // Too many items
         return null;
     }
@@ -1,14 +1,163 @@
-// Copyright (c) 2020-2022 Tesla (Yinsen) Zhang.
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.core.term;
 
+import kala.collection.mutable.MutableArrayList;
 import org.aya.core.pat.Pat;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.UnaryOperator;
 
-public record StringTerm(@NotNull String string) implements StableWHNF {
+/**
+ * String literals, represented as ropes so that repeated concatenation
+ * (like {@code str ++ repeat n str}) does not copy the whole string every time.
+ * Two string terms are equal if they have the same content, regardless of the shape of their ropes.
+ *
+ * @see org.aya.core.def.PrimDef.ID#STRCONCAT
+ */
+public record StringTerm(@NotNull Rope rope) implements StableWHNF {
+  public StringTerm(@NotNull String string) {
+    this(new Rope.Leaf(string));
+  }
+
   @Override public @NotNull StringTerm descent(@NotNull UnaryOperator<Term> f, @NotNull UnaryOperator<Pat> g) {
     return this;
   }
+
+  public @NotNull String string() {
+    return rope.flatten();
+  }
+
+  public int length() {
+    return rope.length();
+  }
+
+  public @NotNull StringTerm concat(@NotNull StringTerm other) {
+    if (other.length() == 0) return this;
+    if (length() == 0) return other;
+    return new StringTerm(Rope.concat(rope, other.rope));
+  }
+
+  @Override public boolean equals(Object o) {
+    return o instanceof StringTerm that && length() == that.length() && string().equals(that.string());
+  }
+
+  @Override public int hashCode() {
+    return string().hashCode();
+  }
+
+  /**
+   * Every {@link Concat} node is height-balanced like an AVL tree: the depths of its children differ by at most one.
+   * A rope of depth {@code d} thus has at least {@code F(d + 2)} leaves ({@code F} is the Fibonacci sequence),
+   * so its depth is logarithmic in its size, and concatenating two ropes only rebuilds the spine it descends into.
+   */
+  public sealed interface Rope {
+    /** Short strings are copied eagerly, there is no point in allocating a node for them. */
+    int LEAF_SIZE = 64;
+
+    int length();
+    int depth();
+    @NotNull String flatten();
+
+    static @NotNull Rope concat(@NotNull Rope left, @NotNull Rope right) {
+      if (left.length() + right.length() <= LEAF_SIZE)
+        return new Leaf(left.flatten() + right.flatten());
+      return join(left, right);
+    }
+
+    /** Attaches the shallower rope to the spine of the deeper one, rebalancing on the way back. */
+    private static @NotNull Rope join(@NotNull Rope left, @NotNull Rope right) {
+      if (left.depth() > right.depth() + 1) {
+        var concat = (Concat) left;
+        return balance(concat.left, join(concat.right, right));
+      }
+      if (right.depth() > left.depth() + 1) {
+        var concat = (Concat) right;
+        return balance(join(left, concat.left), concat.right);
+      }
+      return new Concat(left, right);
+    }
+
+    /** The depths of {@param left} and {@param right} differ by at most two, like after an insertion into an AVL tree. */
+    private static @NotNull Rope balance(@NotNull Rope left, @NotNull Rope right) {
+      if (left.depth() > right.depth() + 1) {
+        var l = (Concat) left;
+        if (l.left.depth() >= l.right.depth()) return new Concat(l.left, new Concat(l.right, right));
+        var lr = (Concat) l.right;
+        return new Concat(new Concat(l.left, lr.left), new Concat(lr.right, right));
+      }
+      if (right.depth() > left.depth() + 1) {
+        var r = (Concat) right;
+        if (r.right.depth() >= r.left.depth()) return new Concat(new Concat(left, r.left), r.right);
+        var rl = (Concat) r.left;
+        return new Concat(new Concat(left, rl.left), new Concat(rl.right, r.right));
+      }
+      return new Concat(left, right);
+    }
+
+    record Leaf(@NotNull String string) implements Rope {
+      @Override public int length() {
+        return string.length();
+      }
+
+      @Override public int depth() {
+        return 0;
+      }
+
+      @Override public @NotNull String flatten() {
+        return string;
+      }
+    }
+
+    final class Concat implements Rope {
+      private final @NotNull Rope left, right;
+      private final int length, depth;
+      private @Nullable String flat;
+
+      private Concat(@NotNull Rope left, @NotNull Rope right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length() + right.length();
+        this.depth = Math.max(left.depth(), right.depth()) + 1;
+      }
+
+      public @NotNull Rope left() {
+        return left;
+      }
+
+      public @NotNull Rope right() {
+        return right;
+      }
+
+      @Override public int length() {
+        return length;
+      }
+
+      @Override public int depth() {
+        return depth;
+      }
+
+      @Override public @NotNull String flatten() {
+        if (flat != null) return flat;
+        var builder = new StringBuilder(length);
+        var stack = MutableArrayList.<Rope>of(this);
+        while (stack.isNotEmpty()) {
+          switch (stack.removeLast()) {
+            case Leaf(var string) -> builder.append(string);
+            case Concat concat when concat.flat != null -> builder.append(concat.flat);
+            case Concat concat -> {
+              stack.append(concat.right);
+              stack.append(concat.left);
+            }
+          }
+        }
+        return flat = builder.toString();
+      }
+
+      @Override public String toString() {
+        return "Concat[" + flatten() + "]";
+      }
+    }
+  }
 }
@@ -8,6 +8,7 @@ import kala.collection.mutable.MutableList;
 import kala.collection.mutable.MutableMap;
 import kala.tuple.Tuple3;
 import org.aya.core.UntypedParam;
+import org.aya.core.nbe.Evaluator;
 import org.aya.core.pat.Pat;
 import org.aya.core.visitor.*;
 import org.aya.generic.AyaDocile;
@@ -66,7 +67,17 @@ public sealed interface Term extends AyaDocile, Restr.TermLike<Term>
   }
 
   default @NotNull Term subst(@NotNull Subst subst, int ulift) {
-    return this.subst(subst).lift(ulift);
+    return new EndoTerm.Instantiator(null, new EndoTerm.Elevator(ulift),
+      new EndoTerm.Substituter(subst), true).apply(this);
+  }
+
+  /**
+   * Equivalent to {@code rename().lift(ulift).subst(subst)} (or without the {@code rename()}),
+   * but traverses the term only once.
+   */
+  default @NotNull Term instantiate(boolean rename, @NotNull Subst subst, int ulift) {
+    return new EndoTerm.Instantiator(rename ? new EndoTerm.Renamer() : null,
+      new EndoTerm.Elevator(ulift), new EndoTerm.Substituter(subst), false).apply(this);
   }
 
   default @NotNull Term rename() {
@@ -94,15 +105,18 @@ public sealed interface Term extends AyaDocile, Restr.TermLike<Term>
       case NULL -> this;
       case NF -> new Expander.Normalizer(state).apply(this);
       case WHNF -> new Expander.WHNFer(state).apply(this);
+      case NBE -> new Evaluator(state).normalize(this);
     };
   }
 
   default @NotNull Term freezeHoles(@Nullable TyckState state) {
     return new EndoTerm() {
       @Override public @NotNull Term pre(@NotNull Term term) {
-        return term instanceof MetaTerm hole && state != null
-          ? state.metas().getOption(hole.ref()).map(this::pre).getOrDefault(term)
-          : term;
+        if (term instanceof MetaTerm hole && state != null) {
+          var solution = state.solution(hole.ref());
+          if (solution != null) return pre(solution);
+        }
+        return term;
       }
     }.apply(this);
   }
@@ -7,14 +7,17 @@ import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableMap;
 import kala.control.Option;
 import kala.tuple.Tuple;
+import org.aya.core.def.FnDef;
 import org.aya.core.pat.PatMatcher;
 import org.aya.core.term.*;
 import org.aya.generic.Modifier;
+import org.aya.generic.util.NormalizeMode;
 import org.aya.guest0x0.cubical.Partial;
 import org.aya.tyck.tycker.TyckState;
 import org.aya.util.Arg;
 import org.aya.util.error.InternalException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author wsx
@@ -42,10 +45,9 @@ public interface DeltaExpander extends EndoTerm {
       case FnCall fn -> {
         var def = fn.ref().core;
         if (def == null || def.modifiers.contains(Modifier.Opaque)) yield fn;
-        yield def.body.fold(
-          lamBody -> apply(lamBody.rename().lift(fn.ulift()).subst(buildSubst(def.telescope(), fn.args()))),
-          clauses -> tryUnfoldClauses(def.modifiers.contains(Modifier.Overlap), fn.args(), fn.ulift(), clauses)
-            .map(this).getOrDefault(fn));
+        var mode = memoMode();
+        if (mode != null) yield state().unfoldCache().getOrCompute(fn, mode, state(), () -> unfold(fn, def));
+        yield unfold(fn, def);
       }
       case RuleReducer reduceRule -> {
         var result = reduceRule.rule().apply(reduceRule.args());
@@ -58,7 +60,7 @@ public interface DeltaExpander extends EndoTerm {
       case PrimCall prim -> state().primFactory().unfold(prim.id(), prim, state());
       case MetaTerm hole -> {
         var def = hole.ref();
-        yield state().metas().getOption(def)
+        yield Option.ofNullable(state().solution(def))
           .map(body -> apply(body.subst(buildSubst(def.fullTelescope(), hole.fullArgs()))))
           .getOrDefault(hole);
       }
@@ -75,6 +77,26 @@ public interface DeltaExpander extends EndoTerm {
     };
   }
 
+  /**
+   * The normalization mode this expander reduces the unfolded calls to,
+   * which makes the results reusable through {@link UnfoldCache}.
+   *
+   * @return null if the results depend on anything else, so they should not be cached
+   */
+  default @Nullable NormalizeMode memoMode() {
+    return null;
+  }
+
+  private @NotNull Term unfold(@NotNull FnCall fn, @NotNull FnDef def) {
+    return def.body.fold(
+      lamBody -> apply(lamBody.instantiate(!def.binderFree, buildSubst(def.telescope(), fn.args()), fn.ulift())),
+      clauses -> (def.caseTree != null
+        ? def.caseTree.match(fn.args(), this)
+        .map(matched -> matched.component1().instantiate(matched.component2(), fn.ulift()))
+        : tryUnfoldClauses(def.modifiers.contains(Modifier.Overlap), fn.args(), fn.ulift(), clauses))
+        .map(this).getOrDefault(fn));
+  }
+
   default @NotNull Option<Term> tryUnfoldClauses(
     boolean orderIndependent, @NotNull ImmutableSeq<Arg<Term>> args,
     int ulift, @NotNull ImmutableSeq<Term.Matching> clauses
@@ -82,7 +104,7 @@ public interface DeltaExpander extends EndoTerm {
     for (var matchy : clauses) {
       var subst = PatMatcher.tryBuildSubst(false, matchy.patterns(), args, this);
       if (subst.isOk()) {
-        return Option.some(matchy.body().rename().lift(ulift).subst(subst.get()));
+        return Option.some(matchy.body().instantiate(true, subst.get(), ulift));
       } else if (!orderIndependent && subst.getErr()) return Option.none();
     }
     return Option.none();
@@ -12,6 +12,7 @@ import org.aya.ref.LocalVar;
 import org.aya.util.error.InternalException;
 import org.aya.util.error.SourcePos;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.UnaryOperator;
 
@@ -119,6 +120,51 @@ public interface EndoTerm extends UnaryOperator<Term> {
     }
   }
 
+  /**
+   * Renaming, lifting and substitution fused in one traversal.
+   * Unlike running {@link Renamer}, {@link Elevator} and {@link Substituter} one after another,
+   * each subterm is visited (and rebuilt, if it changes) only once.
+   *
+   * @param renamer          freshens the binders, null if the binders are kept
+   * @param liftReplacements whether the substituted terms are lifted as well,
+   *                         that is, whether the lift happens after the substitution
+   * @see Term#instantiate(boolean, Subst, int)
+   * @see Term#subst(Subst, int)
+   */
+  record Instantiator(
+    @Nullable Renamer renamer, @NotNull Elevator elevator,
+    @NotNull Substituter substituter, boolean liftReplacements
+  ) implements EndoTerm {
+    @Override public @NotNull Term apply(@NotNull Term term) {
+      return switch (term) {
+        case RefTerm ref -> replacement(ref, ref.var());
+        case RefTerm.Field field -> replacement(field, field.ref());
+        default -> EndoTerm.super.apply(term);
+      };
+    }
+
+    private @NotNull Term replacement(@NotNull Term term, @NotNull AnyVar var) {
+      if (renamer != null) {
+        var renamed = renamer.subst().map().getOrNull(var);
+        if (renamed != null) return renamed;
+      }
+      var replaced = substituter.post(term);
+      return liftReplacements && replaced != term ? elevator.apply(replaced) : replaced;
+    }
+
+    @Override public @NotNull Term pre(@NotNull Term term) {
+      return renamer != null ? renamer.pre(term) : term;
+    }
+
+    @Override public @NotNull Pat pre(@NotNull Pat pat) {
+      return renamer != null ? renamer.pre(pat) : pat;
+    }
+
+    @Override public @NotNull Term post(@NotNull Term term) {
+      return substituter.post(elevator.lift() == 0 ? term : elevator.post(term));
+    }
+  }
+
   /** A lift but in American English. */
   record Elevator(int lift) implements EndoTerm {
     @Override public @NotNull Term apply(@NotNull Term term) {
@@ -6,7 +6,10 @@ import kala.collection.Set;
 import kala.collection.immutable.ImmutableSet;
 import kala.collection.mutable.MutableSet;
 import org.aya.core.def.PrimDef;
+import org.aya.core.nbe.Evaluator;
 import org.aya.core.term.*;
+import org.aya.generic.Modifier;
+import org.aya.generic.util.NormalizeMode;
 import org.aya.ref.AnyVar;
 import org.aya.ref.DefVar;
 import org.aya.tyck.tycker.TyckState;
@@ -17,13 +20,52 @@ public interface Expander extends DeltaExpander, BetaExpander {
     return BetaExpander.super.post(DeltaExpander.super.post(term));
   }
 
-  record Normalizer(@Override @NotNull TyckState state) implements Expander {}
+  /**
+   * Function calls are unfolded by {@link Evaluator}, which binds the parameters in an environment
+   * instead of renaming and substituting the body, the rest is reduced by substitution.
+   */
+  record Normalizer(@Override @NotNull TyckState state) implements Expander {
+    @Override public @NotNull NormalizeMode memoMode() {
+      return NormalizeMode.NF;
+    }
 
+    @Override public @NotNull Term post(@NotNull Term term) {
+      if (term instanceof FnCall fn && fn.ref().core != null && !fn.ref().core.modifiers.contains(Modifier.Opaque))
+        return state.unfoldCache().getOrCompute(fn, NormalizeMode.NF, state, () -> new Evaluator(state).normalize(fn));
+      return Expander.super.post(term);
+    }
+  }
+
+  /**
+   * Reduces a term only until its head is exposed. Eliminations reduce the term they eliminate,
+   * calls are unfolded by matching their arguments lazily (see {@link #tryUnfoldClauses}),
+   * and the arguments of what is left are returned unevaluated.
+   */
   record WHNFer(@Override @NotNull TyckState state) implements Expander {
+    @Override public @NotNull NormalizeMode memoMode() {
+      return NormalizeMode.WHNF;
+    }
+
     @Override public @NotNull Term apply(@NotNull Term term) {
       return switch (term) {
         case StableWHNF whnf -> whnf;
+        case RefTerm ref -> ref;
         case ConCall con when (con.ref().core == null || con.ref().core.clauses.clauses().isEmpty()) -> con;
+        case FnCall fn -> post(fn);
+        case MetaTerm hole -> post(hole);
+        case AppTerm app -> {
+          var of = apply(app.of());
+          var result = of == app.of() ? AppTerm.make(app) : AppTerm.make(of, app.arg());
+          yield result instanceof AppTerm ? result : apply(result);
+        }
+        case ProjTerm proj -> {
+          var result = ProjTerm.proj(proj.update(apply(proj.of())));
+          yield result instanceof ProjTerm ? result : apply(result);
+        }
+        case PAppTerm app -> {
+          var result = post(app.update(apply(app.of()), app.args(), app.cube()));
+          yield result instanceof PAppTerm ? result : apply(result);
+        }
         default -> Expander.super.apply(term);
       };
     }
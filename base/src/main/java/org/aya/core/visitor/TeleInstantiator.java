@@ -0,0 +1,54 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.visitor;
+
+import kala.collection.SeqLike;
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.term.Term;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Instantiates a telescope parameter by parameter, as the arguments become available.
+ * The arguments are accumulated in one {@link Subst}, which is applied to a parameter only when it is reached,
+ * so each parameter type is traversed once, rather than once for every argument before it.
+ * <p>
+ * The arguments must not mention the parameters of the telescope,
+ * which is the case for the arguments of a call or the projections of a tuple.
+ */
+public final class TeleInstantiator {
+  private final @NotNull ImmutableSeq<Term.Param> telescope;
+  private final @NotNull Subst subst = new Subst();
+  private final int ulift;
+  private int index = 0;
+
+  /** @param ulift applied to the parameter types, but not to the arguments */
+  public TeleInstantiator(@NotNull SeqLike<Term.Param> telescope, int ulift) {
+    this.telescope = telescope.toImmutableSeq();
+    this.ulift = ulift;
+  }
+
+  public TeleInstantiator(@NotNull SeqLike<Term.Param> telescope) {
+    this(telescope, 0);
+  }
+
+  public boolean hasNext() {
+    return telescope.sizeGreaterThan(index);
+  }
+
+  /** @return the current parameter, instantiated with the arguments given so far */
+  public @NotNull Term.Param current() {
+    var param = telescope.get(index);
+    if (subst.isEmpty() && ulift == 0) return param;
+    return new Term.Param(param, param.type().instantiate(false, subst, ulift));
+  }
+
+  /** Instantiates the current parameter with {@param arg} and moves on to the next one. */
+  public void bind(@NotNull Term arg) {
+    subst.addDirectly(telescope.get(index++).ref(), arg);
+  }
+
+  /** @return the substitution from the parameters bound so far to their arguments */
+  public @NotNull Subst subst() {
+    return subst;
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.visitor;
+
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import org.aya.core.term.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Hash-consing of core terms: structurally equal terms are replaced with one canonical instance,
+ * so they share storage and can be told equal by {@code ==}.
+ * <p>
+ * Terms are interned bottom-up, hence the subterms of a node are already canonical when the node is interned.
+ * The hash of a node mixes the data of the node itself (like the variable of a {@link RefTerm}
+ * or the definition of a call) with the identities of its subterms,
+ * and the equality check stops at the subterms as soon as they are identical,
+ * so interning a node costs time proportional to the node itself rather than to the whole term.
+ * <p>
+ * A canonical term is found by identity in the same way, and is returned as-is without traversing it,
+ * so the terms are interned once (when they are zonked) no matter how many times they are compared later.
+ * <p>
+ * Whether a canonical term mentions metas is computed from its subterms when it is interned,
+ * see {@link #mentionsMetas(Term)}.
+ * The table only holds the canonical terms weakly, the terms no longer used elsewhere are dropped from it.
+ *
+ * @see org.aya.tyck.tycker.TyckState#interner()
+ */
+public final class TermInterner implements EndoTerm {
+  /** The canonical terms with the same hash */
+  private final @NotNull MutableMap<Integer, MutableList<Entry>> table = MutableMap.create();
+  private final @NotNull ReferenceQueue<Term> collected = new ReferenceQueue<>();
+
+  private static final class Entry extends WeakReference<Term> {
+    private final int hash;
+    private final boolean mentionsMetas;
+
+    private Entry(@NotNull Term term, int hash, boolean mentionsMetas, @NotNull ReferenceQueue<Term> queue) {
+      super(term, queue);
+      this.hash = hash;
+      this.mentionsMetas = mentionsMetas;
+    }
+  }
+
+  /** Metas may be solved later, and errors are compared by identity anyway, so they are never interned. */
+  private static boolean skipped(@NotNull Term term) {
+    return term instanceof MetaTerm || term instanceof MetaPatTerm || term instanceof ErrorTerm;
+  }
+
+  @Override public @NotNull Term apply(@NotNull Term term) {
+    if (skipped(term) || canonical(term) == null) return EndoTerm.super.apply(term);
+    return term;
+  }
+
+  @Override public @NotNull Term post(@NotNull Term term) {
+    if (skipped(term)) return term;
+    expunge();
+    var hash = shallowHash(term);
+    var bucket = table.getOrPut(hash, MutableList::create);
+    for (var entry : bucket) {
+      var canonical = entry.get();
+      if (canonical != null && canonical.equals(term)) return canonical;
+    }
+    var mentionsMetas = new boolean[]{false};
+    term.descent(t -> {
+      mentionsMetas[0] |= mentionsMetas(t);
+      return t;
+    }, p -> p);
+    bucket.append(new Entry(term, hash, mentionsMetas[0], collected));
+    return term;
+  }
+
+  /** @return the entry of {@param term} if it is canonical, found by identity */
+  private @Nullable Entry canonical(@NotNull Term term) {
+    var bucket = table.getOrNull(shallowHash(term));
+    if (bucket == null) return null;
+    for (var entry : bucket) if (entry.get() == term) return entry;
+    return null;
+  }
+
+  /**
+   * @return whether {@param term} may mention metas, found in constant time for the canonical terms.
+   * The solved metas are also counted, and the terms not interned are assumed to mention metas.
+   */
+  public boolean mentionsMetas(@NotNull Term term) {
+    if (skipped(term)) return true;
+    var entry = canonical(term);
+    return entry == null || entry.mentionsMetas;
+  }
+
+  /** Removes the entries of the collected terms. */
+  private void expunge() {
+    for (var ref = collected.poll(); ref != null; ref = collected.poll()) {
+      var entry = (Entry) ref;
+      var bucket = table.getOrNull(entry.hash);
+      if (bucket == null) continue;
+      bucket.removeIf(e -> e == entry);
+      if (bucket.isEmpty()) table.remove(entry.hash);
+    }
+  }
+
+  static int shallowHash(@NotNull Term term) {
+    var hash = new int[]{31 * term.getClass().hashCode() + payloadHash(term)};
+    term.descent(t -> {
+      hash[0] = 31 * hash[0] + System.identityHashCode(t);
+      return t;
+    }, p -> p);
+    return hash[0];
+  }
+
+  /** The data of a node other than its subterms, which tells apart the leaves of the same class. */
+  private static int payloadHash(@NotNull Term term) {
+    return switch (term) {
+      case RefTerm(var var) -> var.hashCode();
+      case IntegerTerm integer -> integer.repr().hashCode();
+      case Callable.Common call -> 31 * call.ref().hashCode() + call.ulift();
+      case Callable call -> call.ref().hashCode();
+      case SortTerm(var kind, var lift) -> 31 * kind.hashCode() + lift;
+      case ProjTerm proj -> proj.ix();
+      case StringTerm string -> string.hashCode();
+      case LamTerm lam -> lam.param().ref().hashCode();
+      case PiTerm pi -> pi.param().ref().hashCode();
+      case IntervalTerm interval -> interval.ordinal();
+      default -> 0;
+    };
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.visitor;
+
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import org.aya.concrete.stmt.decl.TeleDecl;
+import org.aya.core.def.FnDef;
+import org.aya.core.meta.Meta;
+import org.aya.core.term.FnCall;
+import org.aya.core.term.MetaPatTerm;
+import org.aya.core.term.MetaTerm;
+import org.aya.core.term.Term;
+import org.aya.generic.util.NormalizeMode;
+import org.aya.ref.DefVar;
+import org.aya.tyck.tycker.TyckState;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the results of unfolding function calls, so the same call is not reduced again
+ * (the same types are normalized over and over in conversion checks).
+ * The arguments are interned by {@link TermInterner} and looked up by identity,
+ * which takes constant time however large they are.
+ * <p>
+ * A result only depends on the definition and the solutions of the metas in the arguments,
+ * the former does not change during the lifetime of a {@link org.aya.tyck.tycker.TyckState},
+ * and the entries whose arguments mention a meta (directly or through the solutions of other metas)
+ * are dropped when the meta is solved, see {@link #invalidate(Meta)}.
+ * The solutions of {@link MetaPatTerm}s are assigned by {@link org.aya.core.pat.PatMatcher} without going through the state,
+ * so the calls whose arguments mention them are not cached.
+ * The oldest entries are evicted when there are more than {@link #MAX_SIZE} of them.
+ * <p>
+ * A cached result is renamed every time it is handed out, unless it binds no variables,
+ * so the call sites never share binders, as if the call was unfolded again.
+ *
+ * @see DeltaExpander#memoMode()
+ */
+public final class UnfoldCache {
+  public static final int MAX_SIZE = 4096;
+
+  /** The arguments are interned, and compared by identity */
+  private record Key(
+    @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref, int ulift,
+    @NotNull ImmutableSeq<Term> args, @NotNull NormalizeMode mode
+  ) {
+    @Override public boolean equals(Object o) {
+      return o instanceof Key key && ref == key.ref && ulift == key.ulift && mode == key.mode
+        && args.sameElements(key.args, true);
+    }
+
+    @Override public int hashCode() {
+      var hash = 31 * (31 * ref.hashCode() + ulift) + mode.hashCode();
+      for (var arg : args) hash = 31 * hash + System.identityHashCode(arg);
+      return hash;
+    }
+  }
+
+  /** @param binderFree whether {@param result} binds no variables, see {@link Term#rename()} */
+  private record Entry(@NotNull Term result, boolean binderFree) {}
+
+  private final @NotNull Map<Key, Entry> table = new LinkedHashMap<>() {
+    @Override protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+      return size() > MAX_SIZE;
+    }
+  };
+  /** The entries whose arguments mention each unsolved meta, which may have been evicted already */
+  private final @NotNull MutableMap<Meta, MutableList<Key>> dependents = MutableMap.create();
+  private int hits = 0;
+  private int misses = 0;
+
+  public @NotNull Term getOrCompute(
+    @NotNull FnCall fn, @NotNull NormalizeMode mode,
+    @NotNull TyckState state, @NotNull Supplier<Term> unfold
+  ) {
+    var interner = state.interner();
+    // The explicitness of the arguments is determined by the definition
+    var args = fn.args().map(arg -> interner.apply(arg.term()));
+    var metas = MutableList.<Meta>create();
+    if (args.anyMatch(interner::mentionsMetas) && !collectMetas(args, state, metas)) return unfold.get();
+    var key = new Key(fn.ref(), fn.ulift(), args, mode);
+    var cached = table.get(key);
+    if (cached != null) {
+      hits++;
+      return cached.binderFree ? cached.result : cached.result.rename();
+    }
+    misses++;
+    // Do not use computeIfAbsent, unfolding may recursively access the cache
+    var result = unfold.get();
+    var renamed = result.rename();
+    table.put(key, new Entry(renamed, renamed == result));
+    metas.forEach(meta -> dependents.getOrPut(meta, MutableList::create).append(key));
+    return result;
+  }
+
+  /**
+   * Collects the unsolved metas the arguments depend on into {@param metas},
+   * including the ones in the solutions of the solved metas.
+   *
+   * @return false if the arguments mention a {@link MetaPatTerm}
+   */
+  private static boolean collectMetas(@NotNull ImmutableSeq<Term> args, @NotNull TyckState state, @NotNull MutableList<Meta> metas) {
+    var metaPat = new boolean[]{false};
+    var collector = new TermConsumer() {
+      @Override public void pre(@NotNull Term term) {
+        switch (term) {
+          case MetaPatTerm _ -> metaPat[0] = true;
+          case MetaTerm hole -> {
+            var solution = state.solution(hole.ref());
+            if (solution != null) accept(solution);
+            else if (!metas.contains(hole.ref())) metas.append(hole.ref());
+          }
+          default -> {}
+        }
+      }
+    };
+    for (var arg : args) {
+      collector.accept(arg);
+      if (metaPat[0]) return false;
+    }
+    return true;
+  }
+
+  /** Called when {@param meta} is solved, drops the entries depending on it. */
+  public void invalidate(@NotNull Meta meta) {
+    dependents.remove(meta).forEach(keys -> keys.forEach(table::remove));
+  }
+
+  public int hits() {
+    return hits;
+  }
+
+  public int misses() {
+    return misses;
+  }
+
+  public int size() {
+    return table.size();
+  }
+}
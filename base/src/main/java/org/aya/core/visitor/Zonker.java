@@ -34,15 +34,15 @@ public record Zonker(
     return switch (term) {
       case MetaTerm hole -> {
         var sol = hole.ref();
-        var metas = tycker.state.metas();
-        if (!metas.containsKey(sol)) {
+        var solution = tycker.state.solution(sol);
+        if (solution == null) {
           tycker.reporter.report(new UnsolvedMeta(stack.view()
             .drop(1)
             .map(t -> t.freezeHoles(tycker.state))
             .toImmutableSeq(), sol.sourcePos, sol.name));
           yield new ErrorTerm(hole);
         }
-        yield pre(metas.get(sol));
+        yield pre(solution);
       }
       case MetaPatTerm metaPat -> metaPat.inline(this);
       case Term misc -> misc;
@@ -19,8 +19,9 @@ import org.aya.util.Arg;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.function.BiPredicate;
-import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
 
 /**
  * <h2> What should I do after I creating a new Shape? </h2>
@@ -56,23 +57,24 @@ public interface Shaped<T> {
   non-sealed interface Nat<T extends AyaDocile> extends Inductive<T> {
     @NotNull T makeZero(@NotNull CtorDef zero);
     @NotNull T makeSuc(@NotNull CtorDef suc, @NotNull Arg<T> t);
-    @NotNull T destruct(int repr);
-    int repr();
+    @NotNull T destruct(@NotNull BigInteger repr);
+    /** Arbitrary-precision, so the literals computed natively never overflow */
+    @NotNull BigInteger repr();
 
     /** Untyped: compare the internal representation only */
     default <O extends AyaDocile> boolean compareUntyped(@NotNull Shaped.Nat<O> other) {
-      return repr() == other.repr();
+      return repr().equals(other.repr());
     }
 
     default @Override @NotNull T constructorForm() {
-      int repr = repr();
+      var repr = repr();
       var zero = ctorRef(CodeShape.GlobalId.ZERO);
       var suc = ctorRef(CodeShape.GlobalId.SUC);
-      if (repr == 0) return makeZero(zero.core);
-      return makeSuc(suc.core, new Arg<>(destruct(repr - 1), true));
+      if (repr.signum() == 0) return makeZero(zero.core);
+      return makeSuc(suc.core, new Arg<>(destruct(repr.subtract(BigInteger.ONE)), true));
     }
 
-    @NotNull Shaped.Nat<T> map(@NotNull IntUnaryOperator f);
+    @NotNull Shaped.Nat<T> map(@NotNull UnaryOperator<BigInteger> f);
   }
 
   non-sealed interface List<T extends AyaDocile> extends Inductive<T> {
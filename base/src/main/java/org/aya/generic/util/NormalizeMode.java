@@ -18,4 +18,10 @@ public enum NormalizeMode {
    * Normalize until the head is canonical.
    */
   WHNF,
+  /**
+   * Fully normalize by evaluation.
+   *
+   * @see org.aya.core.nbe.Evaluator
+   */
+  NBE,
 }
@@ -131,7 +131,7 @@ public class ConcretePrettier extends BasePrettier<Expr> {
         if (ref instanceof DefVar<?, ?> defVar) yield defVar(defVar);
         else yield varDoc(ref);
       }
-      case Expr.LitInt expr -> Doc.plain(String.valueOf(expr.integer()));
+      case Expr.LitInt expr -> Doc.plain(expr.integer().toString());
       case Expr.RawSort e -> Doc.styled(KEYWORD, e.kind().name());
       case Expr.New expr -> Doc.cblock(
         Doc.sep(Doc.styled(KEYWORD, "new"), term(Outer.Free, expr.struct())),
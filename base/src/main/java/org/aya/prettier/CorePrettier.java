@@ -24,6 +24,7 @@ import org.aya.util.prettier.PrettierOptions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.function.UnaryOperator;
 
 /**
@@ -70,8 +71,8 @@ public class CorePrettier extends BasePrettier<Term> {
       case MetaLitTerm lit ->
         lit.repr() instanceof AyaDocile docile ? docile.toDoc(options) : Doc.plain(lit.repr().toString());
       case TupTerm(var items) -> Doc.parened(argsDoc(options, items));
-      case IntegerTerm shaped -> shaped.repr() == 0
-        ? linkLit(0, shaped.ctorRef(CodeShape.GlobalId.ZERO), CON)
+      case IntegerTerm shaped -> shaped.repr().signum() == 0
+        ? linkLit(BigInteger.ZERO, shaped.ctorRef(CodeShape.GlobalId.ZERO), CON)
         : linkLit(shaped.repr(), shaped.ctorRef(CodeShape.GlobalId.SUC), CON);
       case ConCallLike conCall -> visitArgsCalls(conCall.ref(), CON, conCall.conArgs(), outer);
       case FnCallLike fnCall -> visitArgsCalls(fnCall.ref(), FN, fnCall.args(), outer);
@@ -199,7 +200,7 @@ public class CorePrettier extends BasePrettier<Term> {
           linkListLit(Doc.symbol("]"), nil, CON)
         );
       }
-      case StringTerm(var str) -> Doc.plain("\"" + StringUtil.escapeStringCharacters(str) + "\"");
+      case StringTerm str -> Doc.plain("\"" + StringUtil.escapeStringCharacters(str.string()) + "\"");
       case PartialTyTerm(var ty, var restr) -> checkParen(outer, Doc.sep(Doc.styled(KEYWORD, "Partial"),
         term(Outer.AppSpine, ty), Doc.parened(restr(options, restr))), Outer.AppSpine);
       case PartialTerm el -> partial(options, el.partial(), true, Doc.symbol("{|"), Doc.symbol("|}"));
@@ -286,8 +287,8 @@ public class CorePrettier extends BasePrettier<Term> {
       case Pat.Absurd absurd -> Doc.bracedUnless(Doc.styled(KEYWORD, "()"), licit);
       case Pat.Tuple tuple -> Doc.licit(licit,
         Doc.commaList(tuple.pats().view().map(sub -> pat(sub.term(), sub.explicit(), Outer.Free))));
-      case Pat.ShapedInt lit -> Doc.bracedUnless(lit.repr() == 0
-          ? linkLit(0, lit.ctorRef(CodeShape.GlobalId.ZERO), CON)
+      case Pat.ShapedInt lit -> Doc.bracedUnless(lit.repr().signum() == 0
+          ? linkLit(BigInteger.ZERO, lit.ctorRef(CodeShape.GlobalId.ZERO), CON)
           : linkLit(lit.repr(), lit.ctorRef(CodeShape.GlobalId.SUC), CON),
         licit);
     };
@@ -20,6 +20,7 @@ import org.aya.resolve.context.ModuleName;
 import org.aya.tyck.ExprTycker;
 import org.aya.tyck.order.TyckOrder;
 import org.aya.tyck.trace.Trace;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.binop.OpDecl;
 import org.aya.util.error.SourcePos;
 import org.aya.util.reporter.Reporter;
@@ -96,7 +97,14 @@ public record ResolveInfo(
   }
 
   public @NotNull ExprTycker newTycker(@NotNull Reporter reporter, Trace.@Nullable Builder builder) {
-    return new ExprTycker(primFactory, shapeFactory, reporter, builder);
+    return newTycker(reporter, builder, SolutionCheck.Eager);
+  }
+
+  public @NotNull ExprTycker newTycker(
+    @NotNull Reporter reporter, Trace.@Nullable Builder builder,
+    @NotNull SolutionCheck solutionCheck
+  ) {
+    return new ExprTycker(primFactory, shapeFactory, reporter, builder, solutionCheck);
   }
 
   @Debug.Renderer(text = "opInfo.name()")
@@ -3,33 +3,87 @@
 package org.aya.resolve.module;
 
 import kala.collection.immutable.ImmutableSeq;
-import kala.collection.mutable.MutableMap;
-import kala.collection.mutable.MutableTreeMap;
 import org.aya.concrete.stmt.QualifiedID;
 import org.aya.resolve.ResolveInfo;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+
 /**
+ * The cache is safe to share between threads, and every module is loaded once,
+ * the threads loading a module being loaded wait for it.
+ *
  * @author re-xyr
  */
 public class CachedModuleLoader<ML extends ModuleLoader> implements ModuleLoader {
-  private final @NotNull MutableMap<@NotNull String, ResolveInfo> cache = MutableTreeMap.of();
+  private final @NotNull ConcurrentHashMap<@NotNull String, Loading> cache;
   public final @NotNull ML loader;
 
+  /** @param thread the thread loading the module */
+  private record Loading(@NotNull FutureTask<ResolveInfo> task, @NotNull Thread thread) {}
+
   @Override public @NotNull Reporter reporter() {
     return loader.reporter();
   }
 
-  public CachedModuleLoader(@NotNull ML loader) {
+  @Override public @NotNull SolutionCheck solutionCheck() {
+    return loader.solutionCheck();
+  }
+
+  @Override public int tyckParallelism() {
+    return loader.tyckParallelism();
+  }
+
+  @Override public @Nullable ForkJoinPool tyckPool() {
+    return loader.tyckPool();
+  }
+
+  private CachedModuleLoader(@NotNull ML loader, @NotNull ConcurrentHashMap<String, Loading> cache) {
     this.loader = loader;
+    this.cache = cache;
+  }
+
+  public CachedModuleLoader(@NotNull ML loader) {
+    this(loader, new ConcurrentHashMap<>());
+  }
+
+  /** @return a loader sharing the cache with this one, loading the missing modules with {@param loader} */
+  public @NotNull CachedModuleLoader<ML> withLoader(@NotNull ML loader) {
+    return new CachedModuleLoader<>(loader, cache);
   }
 
   @Override public @Nullable ResolveInfo
   load(@NotNull ImmutableSeq<String> path, @NotNull ModuleLoader recurseLoader) {
     var qualified = QualifiedID.join(path);
-    return cache.getOrPut(qualified, () -> loader.load(path, recurseLoader));
+    var task = new Loading(new FutureTask<>(() -> loader.load(path, recurseLoader)), Thread.currentThread());
+    var loading = cache.putIfAbsent(qualified, task);
+    if (loading == null) {
+      loading = task;
+      task.task.run();
+    } else if (loading.thread == Thread.currentThread() && !loading.task.isDone()) {
+      // A module importing itself, which is not cached, as before
+      return loader.load(path, recurseLoader);
+    }
+    try {
+      return loading.task.get();
+    } catch (ExecutionException e) {
+      // Not cached, so it is loaded again next time, like before
+      cache.remove(qualified, loading);
+      throw switch (e.getCause()) {
+        case RuntimeException cause -> cause;
+        case Error cause -> cause;
+        default -> new IllegalStateException(e.getCause());
+      };
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
   }
 
   @Override
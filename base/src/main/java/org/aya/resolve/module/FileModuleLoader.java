@@ -10,6 +10,7 @@ import org.aya.generic.util.AyaFiles;
 import org.aya.resolve.ResolveInfo;
 import org.aya.resolve.context.EmptyContext;
 import org.aya.tyck.trace.Trace;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.error.InternalException;
 import org.aya.util.error.SourceFileLocator;
 import org.aya.util.reporter.Reporter;
@@ -27,8 +28,18 @@ public record FileModuleLoader(
   @NotNull GenericAyaParser parser,
   @NotNull GenericAyaFile.Factory fileManager,
   @NotNull PrimDef.Factory primFactory,
-  Trace.@Nullable Builder builder
+  Trace.@Nullable Builder builder,
+  @Override @NotNull SolutionCheck solutionCheck,
+  @Override int tyckParallelism
 ) implements ModuleLoader {
+  public FileModuleLoader(
+    @NotNull SourceFileLocator locator, @NotNull Path basePath, @NotNull Reporter reporter,
+    @NotNull GenericAyaParser parser, @NotNull GenericAyaFile.Factory fileManager,
+    @NotNull PrimDef.Factory primFactory, Trace.@Nullable Builder builder
+  ) {
+    this(locator, basePath, reporter, parser, fileManager, primFactory, builder, SolutionCheck.Eager, 1);
+  }
+
   @Override
   public @Nullable ResolveInfo load(@NotNull ImmutableSeq<@NotNull String> path, @NotNull ModuleLoader recurseLoader) {
     var sourcePath = AyaFiles.resolveAyaSourceFile(basePath, path);
@@ -4,6 +4,7 @@ package org.aya.resolve.module;
 
 import kala.collection.immutable.ImmutableSeq;
 import org.aya.resolve.ResolveInfo;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -13,8 +14,14 @@ import org.jetbrains.annotations.Nullable;
  */
 public record ModuleListLoader(
   @Override @NotNull Reporter reporter,
-  @NotNull ImmutableSeq<? extends ModuleLoader> loaders
+  @NotNull ImmutableSeq<? extends ModuleLoader> loaders,
+  @Override @NotNull SolutionCheck solutionCheck,
+  @Override int tyckParallelism
 ) implements ModuleLoader {
+  public ModuleListLoader(@NotNull Reporter reporter, @NotNull ImmutableSeq<? extends ModuleLoader> loaders) {
+    this(reporter, loaders, SolutionCheck.Eager, 1);
+  }
+
   @Override
   public @Nullable ResolveInfo load(@NotNull ImmutableSeq<@NotNull String> path, @NotNull ModuleLoader recurseLoader) {
     for (var loader : loaders) {
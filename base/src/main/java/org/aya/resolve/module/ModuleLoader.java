@@ -12,12 +12,16 @@ import org.aya.resolve.ResolveInfo;
 import org.aya.resolve.context.ModuleContext;
 import org.aya.tyck.order.AyaOrgaTycker;
 import org.aya.tyck.order.AyaSccTycker;
+import org.aya.tyck.order.ParallelOrgaTycker;
 import org.aya.tyck.trace.Trace;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.reporter.DelayedReporter;
 import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * @author re-xyr
  */
@@ -36,7 +40,20 @@ public interface ModuleLoader {
   tyckModule(Trace.Builder builder, ResolveInfo resolveInfo, ModuleCallback<E> onTycked) throws E {
     var SCCs = resolveInfo.depGraph().topologicalOrder();
     var delayedReporter = new DelayedReporter(reporter());
-    var sccTycker = new AyaOrgaTycker(AyaSccTycker.create(resolveInfo, builder, delayedReporter), resolveInfo);
+    // The trace builder is not thread-safe
+    if (builder == null && tyckParallelism() > 1 && SCCs.sizeGreaterThan(1)) {
+      var parallelTycker = new ParallelOrgaTycker(resolveInfo, delayedReporter, solutionCheck());
+      var pool = tyckPool();
+      try (delayedReporter) {
+        if (pool != null) parallelTycker.tyckSCCs(SCCs, pool);
+        else parallelTycker.tyckSCCs(SCCs, tyckParallelism());
+      } finally {
+        if (onTycked != null) onTycked.onModuleTycked(resolveInfo, parallelTycker.wellTyped().toImmutableSeq());
+      }
+      return resolveInfo;
+    }
+    var recursive = resolveInfo.depGraph().onCycle(SCCs);
+    var sccTycker = new AyaOrgaTycker(AyaSccTycker.create(resolveInfo, builder, delayedReporter, solutionCheck(), recursive), resolveInfo);
     // in case we have un-messaged TyckException
     try (delayedReporter) {
       SCCs.forEach(sccTycker::tyckSCC);
@@ -72,6 +89,23 @@ public interface ModuleLoader {
   }
 
   @NotNull Reporter reporter();
+  /** @return how the modules loaded by this loader check their meta solutions */
+  default @NotNull SolutionCheck solutionCheck() {
+    return SolutionCheck.Eager;
+  }
+  /**
+   * @return the number of threads checking the independent SCCs of a module, see {@link ParallelOrgaTycker}.
+   */
+  default int tyckParallelism() {
+    return 1;
+  }
+  /**
+   * @return the pool checking the SCCs of the modules, or null for a pool of {@link #tyckParallelism()} threads per module.
+   * The library compiler checks the modules on this pool too, so the modules and their SCCs share one thread budget.
+   */
+  default @Nullable ForkJoinPool tyckPool() {
+    return null;
+  }
   @Nullable ResolveInfo load(@NotNull ImmutableSeq<@NotNull String> path, @NotNull ModuleLoader recurseLoader);
   default @Nullable ResolveInfo load(@NotNull ImmutableSeq<@NotNull String> path) {
     return load(path, this);
@@ -27,26 +27,38 @@ import org.jetbrains.annotations.NotNull;
  * Resolve calls and build call graph of recursive functions,
  * after {@link org.aya.tyck.StmtTycker}.
  *
+ * @param state   used for all the reductions, shared by the resolvers of a termination check
  * @param targets only search calls to those definitions
+ * @param whnfer  unfolds the calls to the definitions that are not {@param targets}
  * @author kiva
  */
 public record CallResolver(
-  @NotNull PrimDef.Factory factory,
+  @NotNull TyckState state,
   @NotNull FnDef caller,
   @NotNull MutableSet<Def> targets,
   @NotNull MutableValue<Term.Matching> currentMatching,
-  @NotNull CallGraph<Callable, Def, Term.Param> graph
+  @NotNull CallGraph<Callable, Def, Term.Param> graph,
+  @NotNull Expander.ConservativeWHNFer whnfer
 ) implements DefVisitor {
+  public CallResolver(
+    @NotNull TyckState state, @NotNull FnDef fn,
+    @NotNull MutableSet<Def> targets,
+    @NotNull CallGraph<Callable, Def, Term.Param> graph
+  ) {
+    this(state, fn, targets, MutableValue.create(), graph,
+      new Expander.ConservativeWHNFer(state, ImmutableSet.from(targets.map(Def::ref))));
+  }
+
   public CallResolver(
     @NotNull PrimDef.Factory factory, @NotNull FnDef fn,
     @NotNull MutableSet<Def> targets,
     @NotNull CallGraph<Callable, Def, Term.Param> graph
   ) {
-    this(factory, fn, targets, MutableValue.create(), graph);
+    this(new TyckState(factory), fn, targets, graph);
   }
 
   private @NotNull Term whnf(@NotNull Term term) {
-    return term.normalize(new TyckState(factory), NormalizeMode.WHNF);
+    return term.normalize(state, NormalizeMode.WHNF);
   }
 
   private void resolveCall(@NotNull Callable callable) {
@@ -67,12 +79,13 @@ public record CallResolver(
       // No matching, the caller is a simple function (not defined by pattern matching).
       // We should compare caller telescope with callee arguments.
       : caller.telescope.view().map(p -> Tuple.of(p.toPat(), p));
-    var codomThings = callable.args().zipView(callee.telescope());
+    // The arguments are at the positions of their parameters, so are the patterns
+    var codomArgs = callable.args().view().take(callee.telescope().size()).map(Arg::term).toImmutableSeq();
+    var col = 0;
     for (var domThing : domThings) {
-      for (var codomThing : codomThings) {
-        var relation = compare(codomThing.component1().term(), domThing.component1().term());
-        matrix.set(domThing.component2(), codomThing.component2(), relation);
-      }
+      for (int row = 0; row < codomArgs.size(); row++)
+        matrix.set(row, col, compare(codomArgs.get(row), domThing.component1().term()));
+      col++;
     }
   }
 
@@ -123,7 +136,7 @@ public record CallResolver(
         case IntegerTerm intTerm -> {
           // ice: by well-typedness, we don't need to compareShape
           if (intTerm.recognition().shape() != intPat.recognition().shape()) yield Relation.unk();
-          yield Relation.fromCompare(Integer.compare(intTerm.repr(), intPat.repr()));
+          yield Relation.fromCompare(intTerm.repr().compareTo(intPat.repr()));
         }
         // TODO[literal]: We may convert constructor call to literals to avoid possible stack overflow?
         case ConCall con -> compare(con, intPat.constructorForm());
@@ -156,7 +169,7 @@ public record CallResolver(
 
   @Override public @NotNull Term pre(@NotNull Term term) {
     // TODO: Rework error reporting to include the original call
-    term = new Expander.ConservativeWHNFer(new TyckState(factory), ImmutableSet.from(targets.map(Def::ref))).apply(term);
+    term = whnfer.apply(term);
     if (term instanceof Callable call) resolveCall(call);
     return DefVisitor.super.pre(term);
   }
@@ -33,12 +33,14 @@ import org.aya.tyck.repr.ShapeFactory;
 import org.aya.tyck.trace.Trace;
 import org.aya.tyck.tycker.TyckState;
 import org.aya.tyck.tycker.UnifiedTycker;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.Arg;
 import org.aya.util.error.InternalException;
 import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -51,7 +53,14 @@ public final class ExprTycker extends UnifiedTycker {
   public final @NotNull AyaShape.Factory shapeFactory;
 
   public ExprTycker(@NotNull PrimDef.Factory primFactory, @NotNull AyaShape.Factory shapeFactory, @NotNull Reporter reporter, Trace.@Nullable Builder traceBuilder) {
-    super(reporter, traceBuilder, new TyckState(primFactory));
+    this(primFactory, shapeFactory, reporter, traceBuilder, SolutionCheck.Eager);
+  }
+
+  public ExprTycker(
+    @NotNull PrimDef.Factory primFactory, @NotNull AyaShape.Factory shapeFactory, @NotNull Reporter reporter,
+    Trace.@Nullable Builder traceBuilder, @NotNull SolutionCheck solutionCheck
+  ) {
+    super(reporter, traceBuilder, new TyckState(primFactory, solutionCheck));
     this.shapeFactory = shapeFactory;
   }
 
@@ -113,7 +122,8 @@ public final class ExprTycker extends UnifiedTycker {
       case Expr.LitInt(var pos, var end) -> {
         var ty = whnf(term);
         if (ty instanceof IntervalTerm) {
-          if (end == 0 || end == 1) yield new Result.Default(end == 0 ? FormulaTerm.LEFT : FormulaTerm.RIGHT, ty);
+          if (end.signum() == 0 || end.equals(BigInteger.ONE))
+            yield new Result.Default(end.signum() == 0 ? FormulaTerm.LEFT : FormulaTerm.RIGHT, ty);
           else yield fail(expr, new PrimError.BadInterval(pos, end));
         }
         yield inheritFallbackUnify(term, synthesize(expr), expr);
@@ -319,13 +329,13 @@ public final class ExprTycker extends UnifiedTycker {
       case Expr.Hole hole -> inherit(hole, ctx.freshTyHole(Constants.randomName(hole), hole.sourcePos()).component2());
       case Expr.Error err -> Result.Default.error(err.description());
       case Expr.LitInt lit -> {
-        int integer = lit.integer();
+        var integer = lit.integer();
         // TODO[literal]: int literals. Currently the parser does not allow negative literals.
         var defs = shapeFactory.findImpl(AyaShape.NAT_SHAPE);
         if (defs.isEmpty()) yield fail(expr, new NoRuleError(expr, null));
         if (defs.sizeGreaterThan(1)) {
           var type = ctx.freshTyHole(STR."_ty\{lit.integer()}'", lit.sourcePos());
-          yield new Result.Default(new MetaLitTerm(lit.sourcePos(), lit.integer(), defs, type.component1()), type.component1());
+          yield new Result.Default(new MetaLitTerm(lit.sourcePos(), integer, defs, type.component1()), type.component1());
         }
         var match = defs.getFirst();
         var type = new DataCall(((DataDef) match.component1()).ref, 0, ImmutableSeq.empty());
@@ -588,7 +598,7 @@ public final class ExprTycker extends UnifiedTycker {
     var recog = shapeFactory.find(var.core);
 
     if (recog.isDefined()) {
-      var head = ShapeFactory.ofFn(var, recog.get());
+      var head = ShapeFactory.ofFn(var, recog.get(), shapeFactory);
       assert head != null : "bad ShapeFactory";
       return defCall(var, (_, ulift, args) -> new RuleReducer.Fn(head, ulift, args));
     }
@@ -20,7 +20,7 @@ import org.aya.core.visitor.Zonker;
 import org.aya.generic.Modifier;
 import org.aya.generic.util.NormalizeMode;
 import org.aya.guest0x0.cubical.Partial;
-import org.aya.tyck.env.SeqLocalCtx;
+import org.aya.tyck.env.PersistentLocalCtx;
 import org.aya.tyck.error.*;
 import org.aya.tyck.pat.ClauseTycker;
 import org.aya.tyck.pat.Conquer;
@@ -28,6 +28,7 @@ import org.aya.tyck.pat.PatClassifier;
 import org.aya.tyck.pat.YouTrack;
 import org.aya.tyck.trace.Trace;
 import org.aya.tyck.tycker.TracedTycker;
+import org.aya.tyck.tycker.TyckState;
 import org.aya.util.Arg;
 import org.aya.util.TreeBuilder;
 import org.aya.util.error.SourcePos;
@@ -50,8 +51,19 @@ public final class StmtTycker extends TracedTycker {
 
   private <S extends Decl, D extends GenericDef> D
   traced(@NotNull S yeah, ExprTycker p, @NotNull BiFunction<S, ExprTycker, D> f) {
-    return traced(() -> new Trace.DeclT(yeah.ref(), yeah.sourcePos()),
-      () -> p.subscoped(() -> f.apply(yeah, p)));
+    return traced(() -> new Trace.DeclT(yeah.ref(), yeah.sourcePos()), () -> {
+      var def = p.subscoped(() -> f.apply(yeah, p));
+      tracing(builder -> builder.append(cacheStatistics(yeah.sourcePos(), p.state)));
+      return def;
+    });
+  }
+
+  /** The caches live as long as the tycker of the top-level declaration, so the numbers are accumulated. */
+  private static @NotNull Trace cacheStatistics(@NotNull SourcePos pos, @NotNull TyckState state) {
+    var conversion = state.conversionCache();
+    var unfold = state.unfoldCache();
+    return new Trace.LabelT(pos, STR."conversion cache: \{conversion.hits()} hits, \{conversion.misses()} misses; "
+      + STR."unfold cache: \{unfold.hits()} hits, \{unfold.misses()} misses");
   }
 
   public @NotNull GenericDef tyck(@NotNull Decl decl, @NotNull ExprTycker tycker) {
@@ -213,7 +225,7 @@ public final class StmtTycker extends TracedTycker {
           tycker.unifyTyReported(result, core.result, prim.result);
         } else prim.signature = new Def.Signature<>(core.telescope, core.result);
         tycker.solveMetas();
-        tycker.ctx = new SeqLocalCtx();
+        tycker.ctx = new PersistentLocalCtx();
       }
       case TeleDecl.DataCtor ctor -> checkCtor(tycker, ctor);
       case TeleDecl.ClassMember member -> {
@@ -20,6 +20,7 @@ import org.aya.generic.Constants;
 import org.aya.ref.AnyVar;
 import org.aya.ref.LocalVar;
 import org.aya.tyck.tycker.TyckState;
+import org.aya.util.Arg;
 import org.aya.util.error.InternalException;
 import org.aya.util.error.SourcePos;
 import org.jetbrains.annotations.Contract;
@@ -31,7 +32,7 @@ import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
 @Debug.Renderer(hasChildren = "true", childrenArray = "extract().toArray()")
-public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
+public sealed interface LocalCtx permits MapLocalCtx, PersistentLocalCtx, SeqLocalCtx {
   @NotNull default Tuple2<MetaTerm, Term> freshHole(@NotNull Term type, @NotNull SourcePos sourcePos) {
     return freshHole(type, Constants.ANONYMOUS_PREFIX, sourcePos);
   }
@@ -40,7 +41,7 @@ public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
     var ctxTele = extract();
     var meta = Meta.from(ctxTele, name, type, sourcePos);
     var view = meta.telescope.map(LamTerm::param);
-    var hole = new MetaTerm(meta, ctxTele.map(Term.Param::toArg), view.map(UntypedParam::toArg));
+    var hole = new MetaTerm(meta, extractArgs(), view.map(UntypedParam::toArg));
     return Tuple.of(hole, LamTerm.make(view, hole));
   }
   default @NotNull Tuple2<MetaTerm, Term>
@@ -48,7 +49,7 @@ public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
     var ctxTele = extract();
     var meta = Meta.from(ctxTele, name, sourcePos);
     var view = meta.telescope.map(LamTerm::param);
-    var hole = new MetaTerm(meta, ctxTele.map(Term.Param::toArg), view.map(UntypedParam::toArg));
+    var hole = new MetaTerm(meta, extractArgs(), view.map(UntypedParam::toArg));
     return Tuple.of(hole, LamTerm.make(view, hole));
   }
   default <T> T with(@NotNull Term.Param param, @NotNull Supplier<T> action) {
@@ -81,7 +82,7 @@ public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
           // This is intentional, we don't want to check for duplication in forwarding
           case LocalVar localVar -> dest.putUnchecked(localVar, get(localVar));
           case Meta meta -> {
-            var sol = state.metas().getOrNull(meta);
+            var sol = state.solution(meta);
             if (sol != null) forward(dest, sol, state);
           }
           default -> {}
@@ -134,6 +135,13 @@ public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
     return ctx.toImmutableSeq();
   }
 
+  /**
+   * @return the arguments corresponding to {@link #extract()}, which a meta created here is applied to
+   */
+  default @NotNull ImmutableSeq<Arg<Term>> extractArgs() {
+    return extract().map(Term.Param::toArg);
+  }
+
   @Contract(mutates = "param1") void extractToLocal(@NotNull MutableList<Term.Param> dest);
   @Contract(pure = true) default @NotNull Term get(@NotNull LocalVar var) {
     var res = getUnchecked(var);
@@ -188,6 +196,7 @@ public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
    * Whether to choose map or seq is completely random in Aya.
    *
    * @see #deriveSeq()
+   * @see #derive()
    */
   @Contract(" -> new") default @NotNull MapLocalCtx deriveMap() {
     return new MapLocalCtx(MutableLinkedHashMap.of(), this);
@@ -198,6 +207,14 @@ public sealed interface LocalCtx permits MapLocalCtx, SeqLocalCtx {
   @Contract(" -> new") default @NotNull SeqLocalCtx deriveSeq() {
     return new SeqLocalCtx(MutableList.create(), this);
   }
+  /**
+   * A context extending this one, where the changes are not visible from this one.
+   * Implementations are free to choose how to do it, see {@link PersistentLocalCtx#derive()}.
+   */
+  @Contract(" -> new") default @NotNull LocalCtx derive() {
+    return deriveMap();
+  }
+
   @Nullable LocalCtx parent();
   @Contract(mutates = "this") void modifyMyTerms(@NotNull UnaryOperator<Term> u);
 }
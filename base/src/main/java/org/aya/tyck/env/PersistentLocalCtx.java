@@ -0,0 +1,172 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck.env;
+
+import kala.collection.SeqView;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.immutable.ImmutableVector;
+import kala.collection.mutable.MutableList;
+import org.aya.core.term.Term;
+import org.aya.ref.LocalVar;
+import org.aya.util.Arg;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * A local context backed by an immutable linked list of bindings, innermost first.
+ * Entering a binder conses a binding, and leaving it pops the binding again,
+ * so {@link #derive()} is a fork that shares all bindings with this context,
+ * and the telescope captured by a meta ({@link #extract()}) is cached in the bindings and shared
+ * by all metas created under the same binders, instead of being copied from the context each time.
+ * <p>
+ * Lookups walk the bindings, which is fine since the bindings referred to are mostly the innermost ones.
+ */
+public final class PersistentLocalCtx implements LocalCtx {
+  /** @param next the enclosing binding */
+  private record Binding(
+    @NotNull LocalVar var, @NotNull Term type,
+    @Nullable Binding next, @NotNull Cache cache
+  ) {
+    private Binding(@NotNull LocalVar var, @NotNull Term type, @Nullable Binding next) {
+      this(var, type, next, new Cache());
+    }
+
+    private @NotNull Term.Param param() {
+      return new Term.Param(var, type, false);
+    }
+  }
+
+  /** Filled when the telescope up to a binding is first extracted. */
+  private static final class Cache {
+    private @Nullable ImmutableSeq<Term.Param> telescope;
+    private @Nullable ImmutableSeq<Arg<Term>> args;
+  }
+
+  private @Nullable Binding top;
+  /** The bindings of {@link #parent()}, which are shared with this context */
+  private final @Nullable Binding base;
+  /** The view of {@link #base}, created once since the lookups through the parent ask for it over and over */
+  private @Nullable PersistentLocalCtx parent;
+
+  private PersistentLocalCtx(@Nullable Binding top, @Nullable Binding base) {
+    this.top = top;
+    this.base = base;
+  }
+
+  public PersistentLocalCtx() {
+    this(null, null);
+  }
+
+  /** @return a fork of this context, sharing the bindings in constant time */
+  @Override public @NotNull PersistentLocalCtx derive() {
+    return new PersistentLocalCtx(top, top);
+  }
+
+  @Override public @Nullable LocalCtx parent() {
+    if (base == null) return null;
+    if (parent == null) parent = new PersistentLocalCtx(base, null);
+    return parent;
+  }
+
+  @Override public void putUnchecked(@NotNull LocalVar var, @NotNull Term term) {
+    top = new Binding(var, term, top);
+  }
+
+  /** Binders are left in the reverse order they are entered, which is the fast path. */
+  @Override public void remove(@NotNull SeqView<LocalVar> vars) {
+    var pending = Collections.newSetFromMap(new IdentityHashMap<LocalVar, Boolean>());
+    vars.filterNot(v -> v == LocalVar.IGNORED).forEach(pending::add);
+    var popped = 0;
+    while (top != null && top != base && pending.contains(top.var)) {
+      top = top.next;
+      popped++;
+    }
+    if (popped < pending.size()) top = rebuildMine(b -> pending.contains(b.var) ? null : b.type);
+  }
+
+  @Override public @Nullable Term getLocal(@NotNull LocalVar var) {
+    for (var b = top; b != null && b != base; b = b.next) if (b.var == var) return b.type;
+    return null;
+  }
+
+  @Override public @Nullable Term getUnchecked(@NotNull LocalVar var) {
+    for (var b = top; b != null; b = b.next) if (b.var == var) return b.type;
+    return null;
+  }
+
+  @Override public boolean isMeEmpty() {
+    return top == base;
+  }
+
+  @Override public boolean isEmpty() {
+    return top == null;
+  }
+
+  @Override public void modifyMyTerms(@NotNull UnaryOperator<Term> u) {
+    top = rebuildMine(b -> u.apply(b.type));
+  }
+
+  /**
+   * Rebuilds the bindings of this context (but not of the parent), outermost first.
+   *
+   * @param f the new type of a binding, or null to drop it
+   */
+  private @Nullable Binding rebuildMine(@NotNull Function<Binding, @Nullable Term> f) {
+    var mine = MutableList.<Binding>create();
+    for (var b = top; b != null && b != base; b = b.next) mine.append(b);
+    var rebuilt = base;
+    for (int i = mine.size() - 1; i >= 0; i--) {
+      var b = mine.get(i);
+      var type = f.apply(b);
+      if (type != null) rebuilt = new Binding(b.var, type, rebuilt);
+    }
+    return rebuilt;
+  }
+
+  @Override public void extractToLocal(@NotNull MutableList<Term.Param> dest) {
+    var mine = MutableList.<Term.Param>create();
+    for (var b = top; b != null && b != base; b = b.next) mine.append(b.param());
+    dest.appendAll(mine.view().reversed());
+  }
+
+  /** @return the whole context, outermost first, shared with the other metas under the same binders */
+  @Override public @NotNull ImmutableSeq<Term.Param> extract() {
+    if (top == null) return ImmutableSeq.empty();
+    fillCache(top);
+    var telescope = top.cache.telescope;
+    assert telescope != null;
+    return telescope;
+  }
+
+  @Override public @NotNull ImmutableSeq<Arg<Term>> extractArgs() {
+    if (top == null) return ImmutableSeq.empty();
+    fillCache(top);
+    var args = top.cache.args;
+    assert args != null;
+    return args;
+  }
+
+  /** Extends the cached telescope of the nearest cached enclosing binding, one binding at a time. */
+  private static void fillCache(@NotNull Binding binding) {
+    if (binding.cache.telescope != null) return;
+    var missing = MutableList.<Binding>create();
+    var b = binding;
+    for (; b != null && b.cache.telescope == null; b = b.next) missing.append(b);
+    ImmutableSeq<Term.Param> telescope = b == null ? ImmutableVector.empty() : b.cache.telescope;
+    ImmutableSeq<Arg<Term>> args = b == null ? ImmutableVector.empty() : b.cache.args;
+    for (int i = missing.size() - 1; i >= 0; i--) {
+      var m = missing.get(i);
+      var param = m.param();
+      telescope = telescope.appended(param);
+      args = args.appended(param.toArg());
+      // The telescope is assigned last, since it is the one checked
+      m.cache.args = args;
+      m.cache.telescope = telescope;
+    }
+  }
+}
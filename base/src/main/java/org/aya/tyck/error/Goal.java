@@ -41,9 +41,9 @@ public record Goal(@NotNull TyckState state, @NotNull MetaTerm hole, @NotNull Im
           )))))
         : Doc.empty()
     );
-    var metas = state.metas();
-    return !metas.containsKey(meta) ? doc :
-      Doc.vcat(Doc.plain("Candidate exists:"), Doc.par(1, metas.get(meta).toDoc(options)), doc);
+    var candidate = state.solution(meta);
+    return candidate == null ? doc :
+      Doc.vcat(Doc.plain("Candidate exists:"), Doc.par(1, candidate.toDoc(options)), doc);
   }
 
   @Override public @NotNull SourcePos sourcePos() {
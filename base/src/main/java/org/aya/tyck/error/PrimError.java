@@ -8,6 +8,8 @@ import org.aya.util.error.SourcePos;
 import org.aya.util.prettier.PrettierOptions;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigInteger;
+
 public sealed interface PrimError extends TyckError {
   record NoResultType(@NotNull TeleDecl.PrimDecl prim) implements PrimError {
     @Override public @NotNull Doc describe(@NotNull PrettierOptions options) {
@@ -20,10 +22,10 @@ public sealed interface PrimError extends TyckError {
     }
   }
 
-  record BadInterval(@NotNull SourcePos sourcePos, int integer) implements TyckError {
+  record BadInterval(@NotNull SourcePos sourcePos, @NotNull BigInteger integer) implements TyckError {
     @Override public @NotNull Doc describe(@NotNull PrettierOptions options) {
       return Doc.sep(Doc.english("The point"),
-        Doc.code(String.valueOf(integer)),
+        Doc.code(integer.toString()),
         Doc.english("does not live in interval"));
     }
 
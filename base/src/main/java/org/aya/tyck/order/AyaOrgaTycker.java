@@ -4,24 +4,24 @@ package org.aya.tyck.order;
 
 import kala.collection.mutable.MutableSet;
 import org.aya.resolve.ResolveInfo;
-import org.aya.util.terck.MutableGraph;
+import org.aya.util.terck.IndexedGraph;
 import org.aya.util.tyck.OrgaTycker;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Incremental and non-stopping compiler for SCCs.
  *
- * @param usageGraph usage graph of decls (usually the transpose of {@link ResolveInfo#depGraph()}).
+ * @param usageGraph usage graph of decls (usually the reversed {@link ResolveInfo#depGraph()}).
  *                   for each (vertex, w) in the graph, the vertex should be tycked first.
  * @author kiva
  */
 public record AyaOrgaTycker(
   @NotNull AyaSccTycker sccTycker,
-  @NotNull MutableGraph<TyckOrder> usageGraph,
+  @NotNull IndexedGraph<TyckOrder> usageGraph,
   @NotNull MutableSet<TyckOrder> skippedSet
 ) implements OrgaTycker<TyckOrder, AyaSccTycker.SCCTyckingFailed> {
   public AyaOrgaTycker(@NotNull AyaSccTycker sccTycker, @NotNull ResolveInfo resolveInfo) {
-    this(sccTycker, resolveInfo.depGraph().transpose(), MutableSet.of());
+    this(sccTycker, IndexedGraph.from(resolveInfo.depGraph()).reversed(), MutableSet.of());
   }
 
   @Override public @NotNull Iterable<TyckOrder> collectUsageOf(@NotNull TyckOrder failed) {
@@ -26,6 +26,8 @@ import org.aya.tyck.StmtTycker;
 import org.aya.tyck.error.CounterexampleError;
 import org.aya.tyck.error.TyckOrderError;
 import org.aya.tyck.trace.Trace;
+import org.aya.tyck.tycker.TyckState;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.reporter.BufferReporter;
 import org.aya.util.reporter.CollectingReporter;
 import org.aya.util.reporter.CountingReporter;
@@ -42,6 +44,7 @@ import java.util.function.Function;
 /**
  * Tyck statements in SCC.
  *
+ * @param recursive the definitions on a cycle of {@link ResolveInfo#depGraph()}, see {@link MutableGraph#onCycle}
  * @author kiva
  * @see ExprTycker
  */
@@ -50,11 +53,30 @@ public record AyaSccTycker(
   @NotNull CountingReporter reporter,
   @NotNull ResolveInfo resolveInfo,
   @NotNull MutableList<@NotNull GenericDef> wellTyped,
-  @NotNull MutableMap<Decl.TopLevel, CollectingReporter> sampleReporters
+  @NotNull MutableMap<Decl.TopLevel, CollectingReporter> sampleReporters,
+  @NotNull SolutionCheck solutionCheck,
+  @NotNull MutableSet<TyckOrder> recursive
 ) implements SCCTycker<TyckOrder, AyaSccTycker.SCCTyckingFailed> {
   public static @NotNull AyaSccTycker create(ResolveInfo resolveInfo, @Nullable Trace.Builder builder, @NotNull Reporter outReporter) {
+    return create(resolveInfo, builder, outReporter, SolutionCheck.Eager);
+  }
+
+  public static @NotNull AyaSccTycker create(
+    ResolveInfo resolveInfo, @Nullable Trace.Builder builder,
+    @NotNull Reporter outReporter, @NotNull SolutionCheck solutionCheck
+  ) {
+    var depGraph = resolveInfo.depGraph();
+    return create(resolveInfo, builder, outReporter, solutionCheck, depGraph.onCycle(depGraph.topologicalOrder()));
+  }
+
+  public static @NotNull AyaSccTycker create(
+    ResolveInfo resolveInfo, @Nullable Trace.Builder builder,
+    @NotNull Reporter outReporter, @NotNull SolutionCheck solutionCheck,
+    @NotNull MutableSet<TyckOrder> recursive
+  ) {
     var counting = CountingReporter.delegate(outReporter);
-    return new AyaSccTycker(new StmtTycker(counting, builder), counting, resolveInfo, MutableList.create(), MutableMap.create());
+    return new AyaSccTycker(new StmtTycker(counting, builder), counting, resolveInfo,
+      MutableList.create(), MutableMap.create(), solutionCheck, recursive);
   }
 
   public @NotNull ImmutableSeq<TyckOrder> tyckSCC(@NotNull ImmutableSeq<TyckOrder> scc) {
@@ -128,26 +150,8 @@ public record AyaSccTycker(
     }
   }
 
-  private <T> boolean hasSuc(
-    @NotNull MutableGraph<T> G,
-    @NotNull MutableSet<T> book,
-    @NotNull T vertex, @NotNull T suc
-  ) {
-    if (book.contains(vertex)) return false;
-    book.add(vertex);
-    for (var test : G.suc(vertex)) {
-      if (test.equals(suc)) return true;
-      if (hasSuc(G, book, test, suc)) return true;
-    }
-    return false;
-  }
-
-  private <T> boolean selfReferencing(@NotNull MutableGraph<T> graph, @NotNull T unit) {
-    return hasSuc(graph, MutableSet.create(), unit, unit);
-  }
-
   private void checkSimpleFn(@NotNull TyckOrder order, @NotNull TeleDecl.FnDecl fn, Expr expr) {
-    if (selfReferencing(resolveInfo.depGraph(), order)) {
+    if (recursive.contains(order)) {
       reporter.report(new BadRecursion(fn.sourcePos(), fn.ref, null));
       throw new SCCTyckingFailed(ImmutableSeq.of(order));
     }
@@ -204,14 +208,14 @@ public record AyaSccTycker(
     // prevent counterexample errors from being reported to the user reporter
     if (decl.personality() == DeclInfo.Personality.COUNTEREXAMPLE) {
       var reporter = sampleReporters.getOrPut(decl, BufferReporter::new);
-      return new ExprTycker(resolveInfo.primFactory(), resolveInfo.shapeFactory(), reporter, tycker.traceBuilder);
+      return new ExprTycker(resolveInfo.primFactory(), resolveInfo.shapeFactory(), reporter, tycker.traceBuilder, solutionCheck);
     }
-    return resolveInfo.newTycker(reporter, tycker.traceBuilder);
+    return resolveInfo.newTycker(reporter, tycker.traceBuilder, solutionCheck);
   }
 
   private void terck(@NotNull SeqView<TyckOrder> units) {
     var recDefs = units.filterIsInstance(TyckOrder.Body.class)
-      .filter(u -> selfReferencing(resolveInfo.depGraph(), u))
+      .filter(recursive::contains)
       .map(TyckOrder::unit);
     if (recDefs.isEmpty()) return;
     // TODO: positivity check for data/record definitions
@@ -224,7 +228,8 @@ public record AyaSccTycker(
     var targets = MutableSet.<Def>from(fn);
     if (targets.isEmpty()) return;
     var graph = CallGraph.<Callable, Def, Term.Param>create();
-    fn.forEach(def -> new CallResolver(resolveInfo.primFactory(), def, targets, graph).accept(def));
+    var state = new TyckState(resolveInfo.primFactory());
+    fn.forEach(def -> new CallResolver(state, def, targets, graph).accept(def));
     var bads = graph.findBadRecursion();
     bads.view()
       .sorted(Comparator.comparing(a -> a.matrix().domain().ref().concrete.sourcePos()))
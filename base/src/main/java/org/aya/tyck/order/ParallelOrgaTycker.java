@@ -0,0 +1,142 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck.order;
+
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import kala.collection.mutable.MutableSet;
+import org.aya.concrete.stmt.decl.TeleDecl;
+import org.aya.core.def.GenericDef;
+import org.aya.resolve.ResolveInfo;
+import org.aya.tyck.unify.SolutionCheck;
+import org.aya.util.reporter.BufferReporter;
+import org.aya.util.reporter.Reporter;
+import org.aya.util.terck.IndexedGraph;
+import org.aya.util.terck.MutableGraph;
+import org.aya.util.tyck.ParallelScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks the SCCs of a module concurrently with a {@link ParallelScheduler},
+ * each SCC as soon as the SCCs it depends on are checked.
+ * Every SCC is checked by its own {@link AyaSccTycker} (thus its own {@link org.aya.tyck.tycker.TyckState}s),
+ * which reports to its own buffer. The buffers and the well-typed definitions are merged in the
+ * topological order of the SCCs, so the result is the same as checking the SCCs one by one with {@link AyaOrgaTycker}.
+ * <p>
+ * The literals are elaborated to any data type recognized as {@link org.aya.core.repr.AyaShape#NAT_SHAPE}
+ * or {@link org.aya.core.repr.AyaShape#LIST_SHAPE} so far, which may not be a dependency.
+ * So the SCCs with data types are barriers: such an SCC waits for all the SCCs before it,
+ * and the SCCs after it wait for it, thus every SCC sees exactly the data types of the SCCs before it.
+ *
+ * @see AyaOrgaTycker
+ */
+public final class ParallelOrgaTycker {
+  private final @NotNull ResolveInfo resolveInfo;
+  private final @NotNull Reporter reporter;
+  private final @NotNull SolutionCheck solutionCheck;
+  private final @NotNull IndexedGraph<TyckOrder> usageGraph;
+  private final @NotNull Set<TyckOrder> skippedSet = ConcurrentHashMap.newKeySet();
+  private final @NotNull MutableList<GenericDef> wellTyped = MutableList.create();
+
+  /** The diagnostics and the definitions of an SCC, or the exception it failed with. */
+  private record Outcome(
+    @NotNull ImmutableSeq<GenericDef> wellTyped,
+    @NotNull BufferReporter problems,
+    @Nullable Throwable error
+  ) {}
+
+  public ParallelOrgaTycker(@NotNull ResolveInfo resolveInfo, @NotNull Reporter reporter, @NotNull SolutionCheck solutionCheck) {
+    this.resolveInfo = resolveInfo;
+    this.reporter = reporter;
+    this.solutionCheck = solutionCheck;
+    this.usageGraph = IndexedGraph.from(resolveInfo.depGraph()).reversed();
+  }
+
+  /** @return the well-typed definitions, in the order they would be checked sequentially */
+  public @NotNull MutableList<GenericDef> wellTyped() {
+    return wellTyped;
+  }
+
+  /**
+   * @param SCCs        in topological order, see {@link MutableGraph#topologicalOrder()}
+   * @param parallelism the number of worker threads
+   */
+  public void tyckSCCs(@NotNull ImmutableSeq<ImmutableSeq<TyckOrder>> SCCs, int parallelism) {
+    try (var pool = ParallelScheduler.pool(parallelism)) {
+      tyckSCCs(SCCs, pool);
+    }
+  }
+
+  /**
+   * @param SCCs in topological order, see {@link MutableGraph#topologicalOrder()}
+   * @param pool the pool shared with the caller, see {@link ParallelScheduler}
+   */
+  public void tyckSCCs(@NotNull ImmutableSeq<ImmutableSeq<TyckOrder>> SCCs, @NotNull ForkJoinPool pool) {
+    var sccOf = MutableMap.<TyckOrder, Integer>create();
+    SCCs.forEachIndexed((i, scc) -> scc.forEach(order -> sccOf.put(order, i)));
+    var dependencies = MutableList.<MutableList<Integer>>create();
+    var lastData = -1;
+    for (int i = 0; i < SCCs.size(); i++) {
+      var deps = MutableList.<Integer>create();
+      for (var order : SCCs.get(i)) {
+        for (var dep : resolveInfo.depGraph().suc(order)) {
+          var j = sccOf.getOrNull(dep);
+          if (j != null) deps.append(j);
+        }
+      }
+      if (SCCs.get(i).anyMatch(order -> order.unit() instanceof TeleDecl.DataDecl)) {
+        // The SCCs before the last barrier are already waited for by it
+        for (int j = Math.max(lastData, 0); j < i; j++) deps.append(j);
+        lastData = i;
+      } else if (lastData >= 0) deps.append(lastData);
+      dependencies.append(deps);
+    }
+    // Computed once and only read by the tasks
+    var recursive = resolveInfo.depGraph().onCycle(SCCs);
+    var outcomes = ParallelScheduler.run(pool, dependencies.toImmutableSeq(),
+      i -> tyckSCC(SCCs.get(i), recursive), outcome -> outcome.error != null);
+    merge(outcomes);
+  }
+
+  private @NotNull Outcome tyckSCC(@NotNull ImmutableSeq<TyckOrder> scc, @NotNull MutableSet<TyckOrder> recursive) {
+    var buffer = new BufferReporter();
+    var sccTycker = AyaSccTycker.create(resolveInfo, null, buffer, solutionCheck, recursive);
+    try {
+      // The failed SCCs mark their usages before their usages are scheduled
+      skip(sccTycker.tyckSCC(scc.filterNot(skippedSet::contains)));
+      return new Outcome(sccTycker.wellTyped().toImmutableSeq(), buffer, null);
+    } catch (Throwable e) {
+      return new Outcome(sccTycker.wellTyped().toImmutableSeq(), buffer, e);
+    }
+  }
+
+  private void skip(@NotNull ImmutableSeq<TyckOrder> failed) {
+    failed.forEach(this::skip);
+  }
+
+  private void skip(@NotNull TyckOrder failed) {
+    if (!skippedSet.add(failed)) return;
+    usageGraph.suc(failed).forEach(this::skip);
+  }
+
+  /** Reports and collects in the topological order, up to the first exception. */
+  private void merge(@NotNull ImmutableSeq<@Nullable Outcome> outcomes) {
+    for (var outcome : outcomes) {
+      if (outcome == null) continue;
+      outcome.problems.problems().forEach(reporter::report);
+      wellTyped.appendAll(outcome.wellTyped);
+      switch (outcome.error) {
+        case null -> {}
+        case RuntimeException e -> throw e;
+        case Error e -> throw e;
+        default -> throw new IllegalStateException(outcome.error);
+      }
+    }
+  }
+}
@@ -44,7 +44,7 @@ public record YouTrack(
     var ctx = PatUnify.unifyPat(
       lhsInfo.component2().patterns().view().map(Arg::term),
       rhsInfo.component2().patterns().view().map(Arg::term),
-      lhsSubst, rhsSubst, tycker.ctx.deriveMap());
+      lhsSubst, rhsSubst, tycker.ctx.derive());
     domination(ctx, rhsSubst, lhsInfo.component1(), rhsInfo.component1(), rhsInfo.component2(), doms);
     domination(ctx, lhsSubst, rhsInfo.component1(), lhsInfo.component1(), lhsInfo.component2(), doms);
     var lhsTerm = lhsInfo.component2().body().subst(lhsSubst);
@@ -9,6 +9,7 @@ import org.aya.core.repr.AyaShape;
 import org.aya.core.repr.ShapeRecognition;
 import org.aya.core.term.DataCall;
 import org.aya.core.term.IntegerOps;
+import org.aya.core.term.ListOps;
 import org.aya.core.term.Term;
 import org.aya.generic.Shaped;
 import org.aya.ref.DefVar;
@@ -44,19 +45,37 @@ public final class ShapeFactory {
 
   public static @Nullable Shaped.Applicable<Term, FnDef, TeleDecl.FnDecl> ofFn(
     @NotNull DefVar<FnDef, TeleDecl.FnDecl> ref,
-    @NotNull ShapeRecognition recog
+    @NotNull ShapeRecognition recog,
+    @NotNull AyaShape.Factory factory
   ) {
     var core = ref.core;
     if (core == null) return null;
+    if (!(core.result instanceof DataCall paramType)) return null;
+    var dataDef = paramType.ref().core;
+    assert dataDef != null : "How?";
 
-    if (recog.shape() == AyaShape.PLUS_LEFT_SHAPE || recog.shape() == AyaShape.PLUS_RIGHT_SHAPE) {
-      if (!(core.result instanceof DataCall paramType)) return null;
-      var dataDef = paramType.ref().core;
-      assert dataDef != null : "How?";
+    if (recog.shape() == AyaShape.APPEND_SHAPE) return new ListOps.Append(ref);
+    if (recog.shape() == AyaShape.LENGTH_SHAPE) {
+      var natRecog = factory.find(dataDef).getOrNull();
+      return natRecog == null ? null : new ListOps.Length(ref, natRecog, paramType);
+    }
 
-      return new IntegerOps.FnRule(ref, IntegerOps.FnRule.Kind.Add);
+    if (recog.shape() == AyaShape.LE_SHAPE) {
+      var boolRecog = factory.find(dataDef).getOrNull();
+      return boolRecog == null ? null : new IntegerOps.LeRule(ref, boolRecog, paramType);
     }
 
-    return null;
+    var kind = recog.shape() == AyaShape.PLUS_LEFT_SHAPE || recog.shape() == AyaShape.PLUS_RIGHT_SHAPE
+      ? IntegerOps.FnRule.Kind.Add
+      : recog.shape() == AyaShape.MUL_SHAPE ? IntegerOps.FnRule.Kind.Mul
+        : recog.shape() == AyaShape.MONUS_SHAPE ? IntegerOps.FnRule.Kind.SubTrunc
+          : recog.shape() == AyaShape.DIV_SHAPE ? IntegerOps.FnRule.Kind.Div
+            : recog.shape() == AyaShape.MOD_SHAPE ? IntegerOps.FnRule.Kind.Mod
+              : recog.shape() == AyaShape.DIV_HELPER_SHAPE ? IntegerOps.FnRule.Kind.DivHelper
+                : recog.shape() == AyaShape.MOD_HELPER_SHAPE ? IntegerOps.FnRule.Kind.ModHelper
+                  : null;
+    if (kind == null) return null;
+
+    return new IntegerOps.FnRule(ref, kind);
   }
 }
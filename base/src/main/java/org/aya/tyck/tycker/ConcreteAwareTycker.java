@@ -10,7 +10,7 @@ import org.aya.core.term.Term;
 import org.aya.core.visitor.Zonker;
 import org.aya.guest0x0.cubical.Partial;
 import org.aya.tyck.Result;
-import org.aya.tyck.env.MapLocalCtx;
+import org.aya.tyck.env.PersistentLocalCtx;
 import org.aya.tyck.trace.Trace;
 import org.aya.util.error.SourceNode;
 import org.aya.util.reporter.Reporter;
@@ -34,7 +34,7 @@ public sealed abstract class ConcreteAwareTycker extends MockTycker permits LetL
     MutableTreeSet.create(Comparator.comparing(SourceNode::sourcePos));
 
   protected ConcreteAwareTycker(@NotNull Reporter reporter, Trace.@Nullable Builder traceBuilder, @NotNull TyckState state) {
-    super(reporter, traceBuilder, state, new MapLocalCtx());
+    super(reporter, traceBuilder, state, new PersistentLocalCtx());
   }
 
   //region Zonk + solveMetas
@@ -45,7 +45,7 @@ public sealed abstract class ConcreteAwareTycker extends MockTycker permits LetL
 
   public @NotNull Term zonk(@NotNull Term term) {
     solveMetas();
-    return Zonker.make(this).apply(term);
+    return state.interner().apply(Zonker.make(this).apply(term));
   }
 
   public @NotNull Result zonk(@NotNull Result result) {
@@ -54,7 +54,8 @@ public sealed abstract class ConcreteAwareTycker extends MockTycker permits LetL
 
   public @NotNull Partial<Term> zonk(@NotNull Partial<Term> term) {
     solveMetas();
-    return term.fmap(Zonker.make(this));
+    var zonker = Zonker.make(this);
+    return term.fmap(t -> state.interner().apply(zonker.apply(t)));
   }
 
   protected final <R extends Result> R traced(
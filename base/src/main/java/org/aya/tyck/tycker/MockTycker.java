@@ -85,7 +85,7 @@ public abstract sealed class MockTycker extends StatedTycker permits ConcreteAwa
 
   public <R> R subscoped(@NotNull Supplier<R> action) {
     var parentCtx = this.ctx;
-    this.ctx = parentCtx.deriveMap();
+    this.ctx = parentCtx.derive();
     var result = action.get();
     this.ctx = parentCtx;
     return result;
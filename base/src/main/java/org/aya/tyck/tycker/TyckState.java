@@ -4,17 +4,25 @@ package org.aya.tyck.tycker;
 
 import kala.collection.mutable.MutableList;
 import kala.collection.mutable.MutableMap;
+import kala.collection.mutable.MutableSet;
 import org.aya.core.def.PrimDef;
 import org.aya.core.meta.Meta;
 import org.aya.core.term.MetaTerm;
+import org.aya.core.term.RefTerm;
 import org.aya.core.term.Term;
+import org.aya.core.visitor.DeltaExpander;
+import org.aya.core.visitor.EndoTerm;
 import org.aya.core.visitor.TermConsumer;
-import org.aya.core.visitor.TermFolder;
+import org.aya.core.visitor.TermInterner;
+import org.aya.core.visitor.UnfoldCache;
 import org.aya.generic.AyaDocile;
 import org.aya.pretty.doc.Doc;
 import org.aya.tyck.env.LocalCtx;
 import org.aya.tyck.error.HoleProblem;
 import org.aya.tyck.trace.Trace;
+import org.aya.tyck.unify.ConversionCache;
+import org.aya.tyck.unify.DoubleChecker;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.tyck.unify.Unifier;
 import org.aya.util.Ordering;
 import org.aya.util.error.SourcePos;
@@ -24,17 +32,43 @@ import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+
 /**
  * Currently we only deal with ambiguous equations (so no 'stuck' equations).
+ *
+ * @param compressed      the solutions where the solved metas are replaced with their solutions, see {@link #solution(Meta)}
+ * @param dependents      the solved metas whose compressed solutions mention each unsolved meta,
+ *                        which are compressed again once it is solved, see {@link #solve(Meta, Term)}
+ * @param blockedEqns     the equations each meta occurs in, so that solving a meta only wakes up these equations,
+ *                        see {@link #addEqn(Eqn)} and {@link #simplify(Reporter, Trace.Builder)}
+ * @param interner        shares the zonked and the compared terms, see {@link org.aya.tyck.tycker.ConcreteAwareTycker#zonk(Term)}
+ * @param unfoldCache     remembers the unfolded function calls, partly invalidated in {@link #solve(Meta, Term)}
+ * @param conversionCache remembers the successful conversion checks, partly invalidated in {@link #solve(Meta, Term)}
+ * @param deferred        the meta solutions to be checked in {@link #checkDeferred(Reporter, Trace.Builder)}
  */
 public record TyckState(
   @NotNull MutableList<Eqn> eqns,
   @NotNull MutableList<WithPos<Meta>> activeMetas,
   @NotNull MutableMap<@NotNull Meta, @NotNull Term> metas,
-  @NotNull PrimDef.Factory primFactory
+  @NotNull MutableMap<@NotNull Meta, @NotNull Term> compressed,
+  @NotNull MutableMap<@NotNull Meta, @NotNull MutableList<Meta>> dependents,
+  @NotNull MutableMap<@NotNull Meta, @NotNull MutableList<Eqn>> blockedEqns,
+  @NotNull PrimDef.Factory primFactory,
+  @NotNull TermInterner interner,
+  @NotNull UnfoldCache unfoldCache,
+  @NotNull ConversionCache conversionCache,
+  @NotNull SolutionCheck solutionCheck,
+  @NotNull MutableList<DeferredCheck> deferred
 ) {
   public TyckState(@NotNull PrimDef.Factory primFactory) {
-    this(MutableList.create(), MutableList.create(), MutableMap.create(), primFactory);
+    this(primFactory, SolutionCheck.Eager);
+  }
+
+  public TyckState(@NotNull PrimDef.Factory primFactory, @NotNull SolutionCheck solutionCheck) {
+    this(MutableList.create(), MutableList.create(), MutableMap.create(), MutableMap.create(), MutableMap.create(), MutableMap.create(), primFactory,
+      new TermInterner(), new UnfoldCache(), new ConversionCache(), solutionCheck, MutableList.create());
   }
 
   /**
@@ -51,21 +85,23 @@ public record TyckState(
   public boolean simplify(
     @NotNull Reporter reporter, @Nullable Trace.Builder tracer
   ) {
-    var removingMetas = MutableList.<WithPos<Meta>>create();
+    var solvedMetas = MutableSet.<Meta>create();
+    var woken = Collections.newSetFromMap(new IdentityHashMap<Eqn, Boolean>());
     for (var activeMeta : activeMetas) {
-      if (metas.containsKey(activeMeta.data())) {
-        var usageCounter = new TermFolder.Usages(activeMeta.data());
-        eqns.retainIf(eqn -> {
-          if (usageCounter.apply(eqn.lhs) + usageCounter.apply(eqn.rhs) > 0) {
-            solveEqn(reporter, tracer, eqn, true);
-            return false;
-          } else return true;
-        });
-        removingMetas.append(activeMeta);
+      var meta = activeMeta.data();
+      if (metas.containsKey(meta)) {
+        solvedMetas.add(meta);
+        blockedEqns.remove(meta).forEach(blocked -> woken.addAll(blocked.asJava()));
       }
     }
-    activeMetas.removeIf(removingMetas::contains);
-    return removingMetas.isNotEmpty();
+    if (solvedMetas.isEmpty()) return false;
+    activeMetas.removeIf(activeMeta -> solvedMetas.contains(activeMeta.data()));
+    // Equations may have been solved already when woken up by another meta, those are not in eqns anymore
+    var solving = eqns.view().filter(woken::contains).toImmutableSeq();
+    eqns.removeIf(woken::contains);
+    // Solving these equations may add new equations and solve more metas, they are handled in the next round
+    for (var eqn : solving) solveEqn(reporter, tracer, eqn, true);
+    return true;
   }
 
   public void solveMetas(@NotNull Reporter reporter, @Nullable Trace.Builder traceBuilder) {
@@ -79,6 +115,22 @@ public record TyckState(
         reporter.report(new HoleProblem.CannotFindGeneralSolution(eqns));
       }
     }
+    checkDeferred(reporter, traceBuilder);
+  }
+
+  /**
+   * Checks the meta solutions deferred by {@link SolutionCheck#Deferred}.
+   * They do not mention unsolved metas, so checking them does not solve metas or add equations.
+   */
+  public void checkDeferred(@NotNull Reporter reporter, @Nullable Trace.Builder tracer) {
+    if (deferred.isEmpty()) return;
+    var checks = deferred.toImmutableSeq();
+    deferred.clear();
+    for (var check : checks) {
+      var unifier = new Unifier(Ordering.Lt, reporter, false, false, tracer, this, check.pos, check.localCtx);
+      if (!new DoubleChecker(unifier, check.lr, check.rl).inherit(check.rhs, check.type))
+        reporter.report(new HoleProblem.IllTypedError(check.lhs, this, check.rhs));
+    }
   }
 
   public void addEqn(@NotNull Eqn eqn) {
@@ -86,8 +138,11 @@ public record TyckState(
     var currentActiveMetas = activeMetas.size();
     var consumer = new TermConsumer() {
       @Override public void pre(@NotNull Term tm) {
-        if (tm instanceof MetaTerm hole && !metas.containsKey(hole.ref()))
-          activeMetas.append(new WithPos<>(eqn.pos, hole.ref()));
+        if (tm instanceof MetaTerm hole) {
+          if (!metas.containsKey(hole.ref())) activeMetas.append(new WithPos<>(eqn.pos, hole.ref()));
+          var blocked = blockedEqns.getOrPut(hole.ref(), MutableList::create);
+          if (blocked.isEmpty() || blocked.getLast() != eqn) blocked.append(eqn);
+        }
         TermConsumer.super.pre(tm);
       }
     };
@@ -96,12 +151,58 @@ public record TyckState(
     assert activeMetas.sizeGreaterThan(currentActiveMetas) : "Adding a bad equation";
   }
 
+  /**
+   * Finds the solution of a meta, where the solved metas are replaced with their solutions,
+   * and remembers it, like path compression in union-find.
+   * Solutions are never changed once found, so a compressed solution stays valid
+   * until one of the unsolved metas it mentions is solved.
+   * The solutions in {@link #metas()} are left as they are.
+   *
+   * @return null if {@param meta} is unsolved
+   */
+  public @Nullable Term solution(@NotNull Meta meta) {
+    var cached = compressed.getOrNull(meta);
+    if (cached != null) return cached;
+    var solution = metas.getOrNull(meta);
+    if (solution == null) return null;
+    var unsolved = MutableSet.<Meta>create();
+    var result = new EndoTerm() {
+      @Override public @NotNull Term pre(@NotNull Term term) {
+        if (!(term instanceof MetaTerm hole)) return term;
+        var inner = solution(hole.ref());
+        if (inner == null) {
+          unsolved.add(hole.ref());
+          return term;
+        }
+        var tele = hole.ref().fullTelescope();
+        var args = hole.fullArgs();
+        // The arguments are usually the variables of the telescope
+        if (tele.zipView(args).allMatch(p -> p.component2().term() instanceof RefTerm(var var) && var == p.component1().ref()))
+          return inner;
+        return inner.subst(DeltaExpander.buildSubst(tele, args));
+      }
+    }.apply(solution);
+    compressed.put(meta, result);
+    unsolved.forEach(other -> dependents.getOrPut(other, MutableList::create).append(meta));
+    return result;
+  }
+
   public boolean solve(@NotNull Meta meta, @NotNull Term t) {
     if (t.findUsages(meta) > 0) return false;
     metas().put(meta, t);
+    dependents.remove(meta).forEach(solved -> solved.forEach(compressed::remove));
+    unfoldCache.invalidate(meta);
+    conversionCache.invalidateMetas();
     return true;
   }
 
+  public record DeferredCheck(
+    @NotNull MetaTerm lhs, @NotNull Term rhs, @NotNull Term type,
+    @NotNull SourcePos pos, @NotNull LocalCtx localCtx,
+    @NotNull Unifier.Sub lr, @NotNull Unifier.Sub rl
+  ) {
+  }
+
   public record Eqn(
     @NotNull Term lhs, @NotNull Term rhs,
     @NotNull Ordering cmp, @NotNull SourcePos pos,
@@ -0,0 +1,83 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck.unify;
+
+import org.aya.core.term.Term;
+import org.aya.util.Ordering;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Remembers the successful conversion checks, so the same types are not compared over and over
+ * (like the expected types of the same calls, or a type compared again after being synthesized).
+ * Only the top-level checks are remembered, whose terms are shared by {@link org.aya.core.visitor.TermInterner},
+ * so the terms are looked up by identity, which takes constant time however large they are.
+ * <p>
+ * The checks mentioning unsolved metas are forgotten whenever a meta is solved,
+ * since the solution changes what these terms are, see {@link org.aya.tyck.tycker.TyckState#solve}.
+ * The cache is cleared when there are more than {@link #MAX_SIZE} entries.
+ *
+ * @see org.aya.core.visitor.UnfoldCache
+ */
+public final class ConversionCache {
+  public static final int MAX_SIZE = 4096;
+
+  private record Key(@NotNull Term lhs, @NotNull Term rhs, @Nullable Term type, @NotNull Ordering cmp) {
+    @Override public boolean equals(Object o) {
+      return o instanceof Key key && lhs == key.lhs && rhs == key.rhs && type == key.type && cmp == key.cmp;
+    }
+
+    @Override public int hashCode() {
+      var hash = 31 * System.identityHashCode(lhs) + System.identityHashCode(rhs);
+      return 31 * (31 * hash + System.identityHashCode(type)) + cmp.hashCode();
+    }
+  }
+
+  private final @NotNull Set<Key> proven = new HashSet<>();
+  /** The entries that mention unsolved metas, also in {@link #proven} */
+  private final @NotNull Set<Key> withMetas = new HashSet<>();
+  private int hits = 0;
+  private int misses = 0;
+
+  public boolean contains(@NotNull Term lhs, @NotNull Term rhs, @Nullable Term type, @NotNull Ordering cmp) {
+    if (proven.contains(new Key(lhs, rhs, type, cmp))) {
+      hits++;
+      return true;
+    }
+    misses++;
+    return false;
+  }
+
+  /** @param mentionsMetas whether the terms mention unsolved metas */
+  public void add(@NotNull Term lhs, @NotNull Term rhs, @Nullable Term type, @NotNull Ordering cmp, boolean mentionsMetas) {
+    if (proven.size() >= MAX_SIZE) {
+      proven.clear();
+      withMetas.clear();
+    }
+    var key = new Key(lhs, rhs, type, cmp);
+    proven.add(key);
+    if (mentionsMetas) withMetas.add(key);
+  }
+
+  /** Called when a meta is solved. */
+  public void invalidateMetas() {
+    if (withMetas.isEmpty()) return;
+    proven.removeAll(withMetas);
+    withMetas.clear();
+  }
+
+  public int hits() {
+    return hits;
+  }
+
+  public int misses() {
+    return misses;
+  }
+
+  public int size() {
+    return proven.size();
+  }
+}
@@ -0,0 +1,20 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck.unify;
+
+/**
+ * How the {@link DoubleChecker} checks a meta solution against the type of the meta.
+ * Only the checks that cannot solve other metas are deferred or skipped,
+ * so the metas are solved the same way in every mode.
+ *
+ * @see Unifier
+ * @see org.aya.tyck.tycker.TyckState#checkDeferred
+ */
+public enum SolutionCheck {
+  /** Check every solution when it is found. */
+  Eager,
+  /** Check the solutions in a batch, after the metas of the declaration are solved. */
+  Deferred,
+  /** Trust the solutions, meant for rebuilding libraries that are already known to be well-typed. */
+  Trusted,
+}
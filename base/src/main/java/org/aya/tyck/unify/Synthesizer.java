@@ -61,8 +61,7 @@ public record Synthesizer(@NotNull TyckState state, @NotNull LocalCtx ctx) {
       case RefTerm(var var) -> ctx.get(var);
       case ConCallLike conCall -> conCall.head().underlyingDataCall();
       case Callable.Tele call -> Def.defResult(call.ref())
-        .subst(DeltaExpander.buildSubst(Def.defTele(call.ref()), call.args()))
-        .lift(call.ulift());
+        .subst(DeltaExpander.buildSubst(Def.defTele(call.ref()), call.args()), call.ulift());
       case ClassCall classCall -> {
         var subst = classCall.fieldSubst(null);
         var univ = MutableList.<SortTerm>create();
@@ -105,7 +104,7 @@ public record Synthesizer(@NotNull TyckState state, @NotNull LocalCtx ctx) {
       case PiTerm pi -> {
         var paramTyRaw = tryPress(pi.param().type());
         if (!(paramTyRaw instanceof SortTerm paramTy)) yield null;
-        var t = new Synthesizer(state, ctx.deriveSeq());
+        var t = new Synthesizer(state, ctx.derive());
         yield t.ctx.with(pi.param(), () -> {
           if (t.press(pi.body()) instanceof SortTerm retTy) {
             return PiTerm.lub(paramTy, retTy);
@@ -9,10 +9,13 @@ import kala.collection.mutable.MutableMap;
 import org.aya.concrete.stmt.decl.TeleDecl;
 import org.aya.core.def.Def;
 import org.aya.core.def.PrimDef;
+import org.aya.core.meta.Meta;
 import org.aya.core.meta.MetaInfo;
 import org.aya.core.term.*;
 import org.aya.core.visitor.AyaRestrSimplifier;
 import org.aya.core.visitor.Subst;
+import org.aya.core.visitor.TeleInstantiator;
+import org.aya.core.visitor.TermFolder;
 import org.aya.generic.SortKind;
 import org.aya.guest0x0.cubical.CofThy;
 import org.aya.guest0x0.cubical.Partial;
@@ -104,16 +107,46 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
     return failure.map(t -> t.freezeHoles(state));
   }
 
-  private void traceEntrance(@NotNull Trace trace) {
-    tracing(builder -> builder.shift(trace));
+  /** The trace is only built when tracing is enabled, because freezing the holes traverses the terms. */
+  private void traceEntrance(@NotNull Supplier<@NotNull Trace> trace) {
+    tracing(builder -> builder.shift(trace.get()));
+  }
+
+  /** @return whether {@param term} mentions no unsolved metas */
+  protected final boolean isMetaFree(@NotNull Term term) {
+    return new TermFolder<Boolean>() {
+      @Override public @NotNull Boolean init() {
+        return true;
+      }
+
+      @Override public @NotNull Boolean fold(@NotNull Boolean acc, @NotNull AnyVar var) {
+        return acc && !(var instanceof Meta meta && !state.metas().containsKey(meta));
+      }
+    }.apply(term);
   }
 
   private void traceExit() {
     tracing(Trace.Builder::reduce);
   }
 
+  /**
+   * The terms are interned first (which is free for the zonked terms, already interned),
+   * so the equal subterms met during the comparison are often identical,
+   * and the same comparisons done again are found in the {@link ConversionCache}.
+   * Only these top-level comparisons are cached, since the terms compared inside are not interned.
+   */
   public boolean compare(@NotNull Term lhs, @NotNull Term rhs, @Nullable Term type) {
-    return compare(lhs, rhs, new Sub(), new Sub(), type);
+    var interner = state.interner();
+    lhs = interner.apply(lhs);
+    rhs = interner.apply(rhs);
+    if (type != null) type = interner.apply(type);
+    if (lhs == rhs) return true;
+    var cache = state.conversionCache();
+    if (cache.contains(lhs, rhs, type, cmp)) return true;
+    var result = compare(lhs, rhs, new Sub(), new Sub(), type);
+    if (result) cache.add(lhs, rhs, type, cmp, interner.mentionsMetas(lhs) || interner.mentionsMetas(rhs)
+      || type != null && interner.mentionsMetas(type));
+    return result;
   }
 
   protected final boolean compare(Term lhs, Term rhs, Sub lr, Sub rl, @Nullable Term type) {
@@ -142,13 +175,17 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
   }
 
   @Nullable protected Term compareUntyped(@NotNull Term lhs, @NotNull Term rhs, Sub lr, Sub rl) {
-    traceEntrance(new Trace.UnifyT(lhs.freezeHoles(state),
-      rhs.freezeHoles(state), pos));
+    var preLhs = lhs;
+    var preRhs = rhs;
+    traceEntrance(() -> new Trace.UnifyT(preLhs.freezeHoles(state), preRhs.freezeHoles(state), pos));
     // lhs & rhs will both be WHNF if either is not a potentially reducible call
     if (isCall(lhs) || isCall(rhs)) {
       var ty = compareApprox(lhs, rhs, lr, rl);
       if (ty == null) ty = doCompareUntyped(lhs, rhs, lr, rl);
-      if (ty != null) return whnf(ty);
+      if (ty != null) {
+        traceExit();
+        return whnf(ty);
+      }
     }
     lhs = whnf(lhs);
     rhs = whnf(rhs);
@@ -225,21 +262,20 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
       checkParams(l.drop(1), r.drop(1), ls, rs, lr, rl, fail, success));
   }
 
-  private boolean visitArgs(SeqLike<Arg<Term>> l, SeqLike<Arg<Term>> r, Sub lr, Sub rl, SeqLike<Term.Param> params) {
-    return visitLists(l.view().map(Arg::term), r.view().map(Arg::term), lr, rl, params);
+  /** @param ulift the lift of {@param params}, the arguments are not lifted */
+  private boolean visitArgs(SeqLike<Arg<Term>> l, SeqLike<Arg<Term>> r, Sub lr, Sub rl, SeqLike<Term.Param> params, int ulift) {
+    return visitLists(l.view().map(Arg::term), r.view().map(Arg::term), lr, rl, new TeleInstantiator(params, ulift));
   }
 
-  private boolean visitLists(SeqView<Term> l, SeqView<Term> r, Sub lr, Sub rl, @NotNull SeqLike<Term.Param> types) {
+  private boolean visitLists(SeqView<Term> l, SeqView<Term> r, Sub lr, Sub rl, @NotNull TeleInstantiator types) {
     assert l.sizeEquals(r);
-    assert r.sizeEquals(types);
-    var typesSubst = types.view();
     var lu = l.toImmutableSeq();
     var ru = r.toImmutableSeq();
     for (int i = 0; lu.sizeGreaterThan(i); i++) {
+      assert types.hasNext();
       var li = lu.get(i);
-      var head = typesSubst.getFirst();
-      if (!compare(li, ru.get(i), lr, rl, head.type())) return false;
-      typesSubst = typesSubst.drop(1).map(type -> type.subst(head.ref(), li));
+      if (!compare(li, ru.get(i), lr, rl, types.current().type())) return false;
+      types.bind(li);
     }
     return true;
   }
@@ -250,8 +286,7 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
   ) {
     var retType = synthesizer().press(lhs);
     // Lossy comparison
-    if (visitArgs(lhs.args(), rhs.args(), lr, rl,
-      Term.Param.subst(Def.defTele(lhsRef), ulift))) return retType;
+    if (visitArgs(lhs.args(), rhs.args(), lr, rl, Def.defTele(lhsRef), ulift)) return retType;
     if (compareWHNF(lhs, rhs, lr, rl, retType)) return retType;
     else return null;
   }
@@ -262,7 +297,7 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
     // If ?x =_A y where A : Prop, then it may not be the case that ?x is y!
     // I think Arend has probably made such a mistake before, but they removed this feature anyway.
     // TODO: revise the above, because `Prop` is now removed
-    traceEntrance(new Trace.UnifyT(lhs.freezeHoles(state), rhs.freezeHoles(state),
+    traceEntrance(() -> new Trace.UnifyT(lhs.freezeHoles(state), rhs.freezeHoles(state),
       pos, type.freezeHoles(state)));
     var ret = switch (type) {
       case ClassCall type1 -> {
@@ -272,7 +307,7 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
           var dummy = fieldSig.telescope.map(x -> x.rename().toArg());
           var l = new FieldTerm(lhs, fieldSig.ref(), type1.orderedArgs()) /* TODO[class]: dummy */;
           var r = new FieldTerm(rhs, fieldSig.ref(), type1.orderedArgs()) /* TODO[class]: dummy */;
-          fieldSubst.add(fieldSig.ref(), l);
+          fieldSubst.addDirectly(fieldSig.ref(), l);
           if (!compare(l, r, lr, rl, fieldSig.result().subst(fieldSubst))) yield false;
         }
         yield true;
@@ -283,13 +318,13 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
       case NewTerm _ -> throw new InternalException("NewTerm is never type");
       case ErrorTerm _ -> true;
       case SigmaTerm(var paramsSeq) -> {
-        var params = paramsSeq.view();
+        var params = new TeleInstantiator(paramsSeq);
         for (int i = 1, size = paramsSeq.size(); i <= size; i++) {
           var l = ProjTerm.proj(lhs, i);
-          var currentParam = params.getFirst();
+          var currentParam = params.current();
           ctx.put(currentParam);
           if (!compare(l, ProjTerm.proj(rhs, i), lr, rl, currentParam.type())) yield false;
-          params = params.drop(1).map(x -> x.subst(currentParam.ref(), l));
+          params.bind(l);
         }
         ctx.remove(paramsSeq.view().map(Term.Param::ref));
         yield true;
@@ -402,11 +437,11 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
     return switch (new Pair<>(preLhs, (Formation) preRhs)) {
       case Pair(DataCall lhs, DataCall rhs) -> {
         if (lhs.ref() != rhs.ref()) yield false;
-        yield visitArgs(lhs.args(), rhs.args(), lr, rl, Term.Param.subst(Def.defTele(lhs.ref()), lhs.ulift()));
+        yield visitArgs(lhs.args(), rhs.args(), lr, rl, Def.defTele(lhs.ref()), lhs.ulift());
       }
       case Pair(ClassCall lhs, ClassCall rhs) -> {
         if (!lhs.sameApply(rhs)) yield false; // TODO[class]: correct?
-        yield visitArgs(lhs.orderedArgs(), rhs.orderedArgs(), lr, rl, SeqView.empty());
+        yield visitArgs(lhs.orderedArgs(), rhs.orderedArgs(), lr, rl, SeqView.empty(), 0);
       }
       case Pair(PiTerm(var lParam, var lBody), PiTerm(var rParam, var rBody)) ->
         checkParam(lParam, rParam, new Subst(), new Subst(), lr, rl, () -> false,
@@ -459,7 +494,7 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
         for (int i = 1; i < lhs.ix(); i++) {
           var l = ProjTerm.proj(lhs, i);
           var currentParam = params.getFirst();
-          subst.add(currentParam.ref(), l);
+          subst.addDirectly(currentParam.ref(), l);
           params = params.drop(1);
         }
         if (params.isNotEmpty()) yield params.getFirst().subst(subst).type();
@@ -525,6 +560,8 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
         case ConCall rhs -> compareUntyped(lhs.constructorForm(), rhs, lr, rl);
         default -> null;
       };
+      case StringTerm lhs -> preRhs instanceof StringTerm rhs && lhs.equals(rhs)
+        ? state.primFactory().getCall(PrimDef.ID.STRING) : null;
       case MetaLitTerm lhs -> {
         if (preRhs instanceof IntegerTerm rhs) {
           yield compareMetaLitWithLit(lhs, rhs.repr(), rhs.type(), lr, rl);
@@ -563,10 +600,10 @@ public sealed abstract class TermComparator extends MockTycker permits Unifier {
     var retType = synthesizer().press(lhs);
     var dataRef = lhs.ref().core.dataRef;
     var dataAlgs = lhs.head().dataArgs();
-    if (!visitArgs(dataAlgs, rhs.head().dataArgs(), lr, rl,
-      Term.Param.subst(Def.defTele(dataRef), lhs.ulift()))) return null;
+    if (!visitArgs(dataAlgs, rhs.head().dataArgs(), lr, rl, Def.defTele(dataRef), lhs.ulift())) return null;
+    // The owner arguments are lifted along with the telescope, while the constructor arguments are not
     if (visitArgs(lhs.conArgs(), rhs.conArgs(), lr, rl,
-      Term.Param.subst(lhs.ref().core.selfTele, conOwnerSubst(lhs), lhs.ulift())))
+      Term.Param.subst(lhs.ref().core.selfTele, conOwnerSubst(lhs), lhs.ulift()), 0))
       return retType;
     return null;
   }
@@ -3,13 +3,20 @@
 package org.aya.tyck.unify;
 
 import kala.collection.Seq;
+import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableArrayList;
+import kala.collection.mutable.MutableLinkedHashMap;
+import kala.collection.mutable.MutableMap;
 import kala.control.Option;
+import kala.tuple.Tuple;
+import kala.tuple.Tuple2;
+import kala.value.LazyValue;
 import org.aya.core.meta.Meta;
 import org.aya.core.meta.MetaInfo;
 import org.aya.core.ops.Eta;
 import org.aya.core.term.*;
 import org.aya.core.visitor.DeltaExpander;
+import org.aya.core.visitor.EndoTerm;
 import org.aya.core.visitor.Subst;
 import org.aya.generic.util.NormalizeMode;
 import org.aya.ref.LocalVar;
@@ -59,6 +66,13 @@ public final class Unifier extends TermComparator {
     return new TyckState.Eqn(lhs, rhs, cmp, pos, local, lr.clone(), rl.clone());
   }
 
+  private @NotNull TyckState.DeferredCheck createCheck(@NotNull MetaTerm lhs, @NotNull Term rhs, @NotNull Term type, Sub lr, Sub rl) {
+    var local = new MapLocalCtx();
+    ctx.forward(local, rhs, state);
+    ctx.forward(local, type, state);
+    return new TyckState.DeferredCheck(lhs, rhs, type, pos, local, lr.clone(), rl.clone());
+  }
+
   /**
    * @param subst is added with unique variables in the inverted spine
    * @return the list of duplicated variables if the spine is successfully inverted.
@@ -66,7 +80,7 @@ public final class Unifier extends TermComparator {
   private @Nullable Seq<LocalVar> invertSpine(Subst subst, @NotNull MetaTerm lhs, @NotNull Meta meta) {
     var overlap = MutableArrayList.<LocalVar>create();
     for (var arg : lhs.args().zipView(meta.telescope)) {
-      if (uneta.uneta(arg.component1().term()) instanceof RefTerm ref) {
+      if (spineVar(arg.component1().term()) instanceof RefTerm ref) {
         if (overlap.contains(ref.var())) continue;
         if (subst.map().containsKey(ref.var())) {
           overlap.append(ref.var());
@@ -78,6 +92,15 @@ public final class Unifier extends TermComparator {
     return overlap;
   }
 
+  /**
+   * {@link #whnf} leaves the spine unevaluated, so we normalize an argument
+   * only if it is not already an (eta-contracted) variable.
+   */
+  private @NotNull Term spineVar(@NotNull Term arg) {
+    var term = uneta.uneta(arg);
+    return term instanceof RefTerm ? term : uneta.uneta(arg.normalize(state, NormalizeMode.NF));
+  }
+
   @Override protected @Nullable Term
   solveMeta(@NotNull MetaTerm lhs, @NotNull Term preRhs, Sub lr, Sub rl, @Nullable Term providedType) {
     return solveMetaWHNF(lhs, whnf(preRhs), lr, rl, providedType);
@@ -92,22 +115,22 @@ public final class Unifier extends TermComparator {
     // which solves more universe levels. However, with latest version Aya (0.13),
     // removing this does not break anything.
     // Update: this is still needed, see #327 last task (`coe'`)
-    var checker = new DoubleChecker(new Unifier(Ordering.Lt,
-      reporter, false, false, traceBuilder, state, pos, ctx.deriveMap()), lr, rl);
+    var checker = LazyValue.of(() -> new DoubleChecker(new Unifier(Ordering.Lt,
+      reporter, false, false, traceBuilder, state, pos, ctx.derive()), lr, rl));
     // Check the expected type.
     var needUnify = true;
     if (preRhs instanceof ErrorTerm) needUnify = false;
     else switch (meta.info) {
       case MetaInfo.AnyType s when preRhs instanceof Formation -> needUnify = false;
       case MetaInfo.AnyType s when preRhs instanceof MetaTerm rhsMeta -> {
-        if (!rhsMeta.ref().info.isType(checker.synthesizer())) {
+        if (!rhsMeta.ref().info.isType(checker.get().synthesizer())) {
           reportIllTyped(lhs, preRhs);
           return null;
         }
         needUnify = false;
       }
       case MetaInfo.AnyType s -> {
-        var synthesize = checker.synthesizer().tryPress(preRhs);
+        var synthesize = checker.get().synthesizer().tryPress(preRhs);
         if (!(synthesize instanceof SortTerm)) {
           reportIllTyped(lhs, preRhs);
           return null;
@@ -124,7 +147,7 @@ public final class Unifier extends TermComparator {
         } else providedType = expectedType;
       }
       case MetaInfo.PiDom(var sort) -> {
-        if (!checker.synthesizer().inheritPiDom(preRhs, sort)) {
+        if (!checker.get().synthesizer().inheritPiDom(preRhs, sort)) {
           reportIllTyped(lhs, preRhs);
         }
       }
@@ -133,10 +156,14 @@ public final class Unifier extends TermComparator {
       // Check the solution.
       if (providedType != null) {
         // resultTy might be an ErrorTerm, what to do?
-        if (!checker.inherit(preRhs, providedType))
+        // Checks mentioning unsolved metas may solve them, so they are never deferred or skipped
+        var mode = state.solutionCheck();
+        if (mode != SolutionCheck.Eager && isMetaFree(preRhs) && isMetaFree(providedType)) {
+          if (mode == SolutionCheck.Deferred) state.deferred().append(createCheck(lhs, preRhs, providedType, lr, rl));
+        } else if (!checker.get().inherit(preRhs, providedType))
           reportIllTyped(lhs, preRhs);
       } else {
-        providedType = checker.synthesizer().synthesize(preRhs);
+        providedType = checker.get().synthesizer().synthesize(preRhs);
         if (providedType == null) {
           throw new UnsupportedOperationException("TODO: add an error report for this");
         }
@@ -187,6 +214,18 @@ public final class Unifier extends TermComparator {
       reporter.report(new HoleProblem.BadlyScopedError(lhs, solved, scopeCheck.invalid));
       return new ErrorTerm(solved);
     }
+    if (scopeCheck.confused.isNotEmpty()) {
+      // The metas may be pruned so that they do not take the confusing variables,
+      // which is only done if that gets rid of all of them
+      var pruning = new Pruning(scopeCheck.confused);
+      var pruned = pruning.apply(solved);
+      var prunedCheck = pruned.scopeCheck(allowedVars);
+      if (prunedCheck.confused.isEmpty()) {
+        pruning.commit();
+        solved = pruned;
+        scopeCheck = prunedCheck;
+      }
+    }
     if (scopeCheck.confused.isNotEmpty()) {
       // Delay the equation and do not solve the meta
       if (allowConfused) state.addEqn(createEqn(lhs, solved, lr, rl));
@@ -202,6 +241,96 @@ public final class Unifier extends TermComparator {
     return providedType;
   }
 
+  /**
+   * Meta pruning: if a context argument of an unsolved meta in the solution is a variable in {@link #outOfScope},
+   * the solution of the meta can never use it, because the solution of the meta would be badly scoped otherwise.
+   * So we solve the meta with a narrower one that does not take these arguments,
+   * which also keeps the context arguments of the metas small.
+   * <p>
+   * Only the metas in rigid positions are pruned: the arguments of metas and of unreduced calls
+   * may be dropped once the metas are solved, so the variables there are not necessarily used.
+   * The metas are solved by {@link #commit()}, after the pruned solution is known to be well-scoped.
+   */
+  private final class Pruning implements EndoTerm {
+    private final @NotNull Seq<LocalVar> outOfScope;
+    /** The narrower metas and the context arguments they keep */
+    private final @NotNull MutableMap<Meta, Tuple2<Meta, ImmutableSeq<Boolean>>> pruned = MutableLinkedHashMap.of();
+
+    private Pruning(@NotNull Seq<LocalVar> outOfScope) {
+      this.outOfScope = outOfScope;
+    }
+
+    @Override public @NotNull Term apply(@NotNull Term term) {
+      return switch (term) {
+        case MetaTerm hole -> prune(hole);
+        case FnCall fn -> fn;
+        case RuleReducer reducer -> reducer;
+        case PrimCall prim -> prim;
+        case AppTerm app when !rigidHead(app) -> app;
+        case ProjTerm proj when !rigidHead(proj) -> proj;
+        case PAppTerm app when !rigidHead(app) -> app;
+        default -> EndoTerm.super.apply(term);
+      };
+    }
+
+    /** Whether an elimination is stuck on a variable, so it stays however the metas are solved */
+    private static boolean rigidHead(@NotNull Term term) {
+      while (true) {
+        switch (term) {
+          case AppTerm app -> term = app.of();
+          case ProjTerm proj -> term = proj.of();
+          case PAppTerm app -> term = app.of();
+          default -> {
+            return term instanceof RefTerm;
+          }
+        }
+      }
+    }
+
+    private @NotNull Term prune(@NotNull MetaTerm hole) {
+      var narrow = pruned.getOrNull(hole.ref());
+      if (narrow == null && !state.metas().containsKey(hole.ref())) {
+        narrow = pruneMeta(hole);
+        if (narrow != null) pruned.put(hole.ref(), narrow);
+      }
+      if (narrow == null) return hole;
+      var keep = narrow.component2();
+      return new MetaTerm(narrow.component1(), kept(hole.contextArgs(), keep), hole.args());
+    }
+
+    /** @return the narrower meta solving {@param hole} and the context arguments it keeps, or null if not pruned */
+    private @Nullable Tuple2<Meta, ImmutableSeq<Boolean>> pruneMeta(@NotNull MetaTerm hole) {
+      var meta = hole.ref();
+      // The conditions are about the variables of the original context
+      if (meta.conditions.isNotEmpty()) return null;
+      var keep = hole.contextArgs().map(arg -> !(arg.term() instanceof RefTerm(var var) && outOfScope.contains(var)));
+      if (keep.allMatch(k -> k)) return null;
+      var contextTele = kept(meta.contextTele, keep);
+      var prunedVars = meta.contextTele.zipView(keep).filterNot(Tuple2::component2).map(p -> p.component1().ref());
+      // The remaining types must not depend on the pruned variables
+      var types = contextTele.view().concat(meta.telescope).map(Term.Param::type);
+      if (meta.info instanceof MetaInfo.Result(var result)) types = types.appended(result);
+      if (types.anyMatch(type -> prunedVars.anyMatch(var -> type.findUsages(var) > 0))) return null;
+      return Tuple.of(meta.pruned(contextTele), keep);
+    }
+
+    /** Solves the pruned metas with the narrower ones */
+    private void commit() {
+      pruned.forEach((meta, narrow) -> {
+        var narrowMeta = narrow.component1();
+        var solution = new MetaTerm(narrowMeta, narrowMeta.contextTele.map(Term.Param::toArg),
+          meta.telescope.map(Term.Param::toArg));
+        // The narrower meta is fresh, so the occurs check never fails
+        if (!state.solve(meta, solution)) throw new InternalException("Cannot prune " + meta);
+        tracing(builder -> builder.append(new Trace.LabelT(pos, "Hole pruned!")));
+      });
+    }
+  }
+
+  private static <T> @NotNull ImmutableSeq<T> kept(@NotNull ImmutableSeq<T> seq, @NotNull ImmutableSeq<Boolean> keep) {
+    return seq.zipView(keep).filter(Tuple2::component2).map(Tuple2::component1).toImmutableSeq();
+  }
+
   private void reportIllTyped(@NotNull MetaTerm lhs, @NotNull Term preRhs) {
     reporter.report(new HoleProblem.IllTypedError(lhs, state, preRhs));
   }
@@ -0,0 +1,81 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.concrete;
+
+import org.aya.concrete.desugar.AyaBinOpSet;
+import org.aya.concrete.error.OperatorError;
+import org.aya.resolve.context.Context;
+import org.aya.util.binop.Assoc;
+import org.aya.util.binop.BinOpSet;
+import org.aya.util.binop.OpDecl;
+import org.aya.util.error.SourcePos;
+import org.aya.util.reporter.BufferReporter;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.aya.util.binop.BinOpSet.PredCmp.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinOpSetTest {
+  private static final OpDecl A = op("a"), B = op("b"), C = op("c"), D = op("d");
+
+  private static @NotNull OpDecl op(@NotNull String name) {
+    var info = new OpDecl.OpInfo(name, Assoc.InfixL);
+    return () -> info;
+  }
+
+  private static void tighter(@NotNull BinOpSet set, @NotNull OpDecl op, @NotNull OpDecl target) {
+    set.bind(op, OpDecl.BindPred.Tighter, target, SourcePos.NONE);
+  }
+
+  private static BinOpSet.PredCmp compare(@NotNull BinOpSet set, @NotNull OpDecl lhs, @NotNull OpDecl rhs) {
+    return set.compare(set.ensureHasElem(lhs), set.ensureHasElem(rhs));
+  }
+
+  @Test public void transitive() {
+    var set = new AyaBinOpSet(new BufferReporter());
+    // The edge into `b` is added after the edge out of it
+    tighter(set, B, C);
+    tighter(set, A, B);
+    set.bind(D, OpDecl.BindPred.Looser, C, SourcePos.NONE);
+    assertEquals(Tighter, compare(set, A, C));
+    assertEquals(Looser, compare(set, C, A));
+    assertEquals(Tighter, compare(set, A, D));
+    assertEquals(Tighter, compare(set, B, D));
+    assertEquals(Equal, compare(set, A, A));
+    assertEquals(Undefined, compare(set, A, op("e")));
+    assertEquals(Tighter, set.compare(BinOpSet.APP_ELEM, set.ensureHasElem(D)));
+    assertEquals(Looser, set.compare(set.ensureHasElem(A), BinOpSet.APP_ELEM));
+    set.reportIfCyclic();
+  }
+
+  @Test public void cycle() {
+    var reporter = new BufferReporter();
+    var set = new AyaBinOpSet(reporter);
+    tighter(set, A, B);
+    tighter(set, B, C);
+    tighter(set, C, A);
+    assertThrows(Context.ResolvingInterruptedException.class, set::reportIfCyclic);
+    assertInstanceOf(OperatorError.Circular.class, reporter.problems().single());
+  }
+
+  @Test public void selfBind() {
+    var reporter = new BufferReporter();
+    var set = new AyaBinOpSet(reporter);
+    assertThrows(Context.ResolvingInterruptedException.class, () -> set.bind(A, OpDecl.BindPred.Looser, A, SourcePos.NONE));
+    assertInstanceOf(OperatorError.SelfBind.class, reporter.problems().single());
+  }
+
+  @Test public void importBind() {
+    var imported = new AyaBinOpSet(new BufferReporter());
+    tighter(imported, A, B);
+    tighter(imported, B, C);
+    var set = new AyaBinOpSet(new BufferReporter());
+    tighter(set, C, D);
+    set.importBind(imported, SourcePos.NONE);
+    assertEquals(Tighter, compare(set, A, C));
+    assertEquals(Tighter, compare(set, A, D));
+    assertEquals(Looser, compare(set, D, B));
+    set.reportIfCyclic();
+  }
+}
@@ -2,18 +2,25 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.core;
 
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.def.DataDef;
 import org.aya.core.def.FnDef;
+import org.aya.core.meta.Meta;
 import org.aya.core.term.*;
 import org.aya.generic.util.NormalizeMode;
 import org.aya.prettier.AyaPrettierOptions;
 import org.aya.tyck.TyckDeclTest;
 import org.aya.tyck.tycker.TyckState;
+import org.aya.util.Arg;
+import org.aya.util.error.SourcePos;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
 import java.util.Objects;
 import java.util.function.IntFunction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class NormalizeTest {
@@ -96,4 +103,248 @@ public class NormalizeTest {
     assertEquals("1 :< nil", normalizer.apply(defs.size() - 2).toDoc(AyaPrettierOptions.debug()).debugRender());
     assertEquals("1 :< nil", normalizer.apply(defs.size() - 1).toDoc(AyaPrettierOptions.debug()).debugRender());
   }
+
+  @Test public void nbeAgreesWithNF() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      def Num => Fn (x : Type 0) -> (x -> x) -> (x -> x)
+      def two : Num => \\ A f x => f (f x)
+      def mul (a b : Num) : Num => \\A f x => a A (b A f) x
+      def four : Num => mul two two
+      overlap def infixl + (a b : Nat) : Nat
+        | zero, a => a
+        | a, zero => a
+        | suc a, b => suc (a + b)
+        | a, suc b => suc (a + b)
+      def sum (a : Nat) : Nat => suc (suc zero) + a
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    for (var def : defs) {
+      if (!(def instanceof FnDef fn) || fn.body.isRight()) continue;
+      var body = fn.body.getLeftValue();
+      assertEquals(
+        body.normalize(state, NormalizeMode.NF).toDoc(AyaPrettierOptions.debug()).debugRender(),
+        body.normalize(state, NormalizeMode.NBE).toDoc(AyaPrettierOptions.debug()).debugRender());
+    }
+  }
+
+  /** WHNF reduces the heads of eliminations and calls, but not the arguments under the head it exposes. */
+  @Test public void whnfHeadOnly() {
+    var res = TyckDeclTest.successTyckDecls("""
+      prim I
+      prim intervalInv
+      def ~ => intervalInv
+      def infix = {A : Type} (a b : A) : Type => [| i |] A { ~ i := a | i := b }
+      def idp {A : Type} {a : A} : a = a => \\i => a
+      open data Nat | zero | suc Nat
+      def id (a : Nat) : Nat => a
+      def sucId : Nat -> Nat => \\ x => suc (id x)
+      def pair : Sig Nat ** Nat => (suc (id zero), zero)
+      def path (p : suc (id zero) = suc (id zero)) : suc (id zero) = suc (id zero) => p
+      def con : Nat => suc (id zero)
+      def app : Nat => sucId zero
+      def proj : Nat => pair.1
+      def papp (i : I) : Nat => path idp i
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    for (var name : new String[]{"con", "app", "proj", "papp"}) {
+      var body = defs.view().filterIsInstance(FnDef.class)
+        .find(fn -> fn.ref.name().equals(name)).get().body.getLeftValue();
+      var whnf = body.normalize(state, NormalizeMode.WHNF);
+      var con = assertInstanceOf(ConCall.class, whnf, name);
+      assertInstanceOf(FnCall.class, con.conArgs().single().term(), name);
+    }
+  }
+
+  @Test public void unfoldCaseTree() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      def sub (a b : Nat) : Nat
+        | zero, _ => zero
+        | a, zero => a
+        | suc a, suc b => sub a b
+      def isTwo (a : Nat) : Nat
+        | 2 => 1
+        | _ => 0
+      def five : Nat => sub 7 2
+      def one : Nat => isTwo (sub 3 1)
+      def notTwo : Nat => isTwo 3
+      def stuck (a : Nat) : Nat => sub (suc a) zero
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    assertTrue(defs.allMatch(def -> !(def instanceof FnDef fn) || fn.body.isLeft() || fn.caseTree != null));
+    IntFunction<String> normalizer = i -> ((FnDef) defs.get(i)).body.getLeftValue()
+      .normalize(state, NormalizeMode.NF).toDoc(AyaPrettierOptions.debug()).debugRender();
+    assertEquals("5", normalizer.apply(3));
+    assertEquals("1", normalizer.apply(4));
+    assertEquals("0", normalizer.apply(5));
+    assertEquals("suc a", normalizer.apply(6));
+  }
+
+  @Test public void unfoldCache() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      def infixl + (a b : Nat) : Nat
+        | zero, b => b
+        | suc a, b => suc (a + b)
+      def six : Nat => 3 + 3
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    var body = ((FnDef) defs.get(defs.size() - 1)).body.getLeftValue();
+    var first = body.normalize(state, NormalizeMode.NF);
+    var misses = state.unfoldCache().misses();
+    assertEquals(first, body.normalize(state, NormalizeMode.NF));
+    assertEquals(misses, state.unfoldCache().misses());
+    assertTrue(state.unfoldCache().hits() > 0);
+  }
+
+  @Test public void unfoldCacheInvalidation() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      def id (a : Nat) : Nat => a
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    var id = (FnDef) defs.get(defs.size() - 1);
+    var ctors = ((DataDef) defs.get(defs.size() - 2)).body;
+    var zero = ctors.get(0);
+    var suc = ctors.get(1);
+    var m = Meta.from(ImmutableSeq.empty(), "m", SourcePos.NONE);
+    var n = Meta.from(ImmutableSeq.empty(), "n", SourcePos.NONE);
+    var hole = new MetaTerm(m, ImmutableSeq.empty(), ImmutableSeq.empty());
+    var arg = new ConCall(suc.dataRef, suc.ref, ImmutableSeq.empty(), 0, ImmutableSeq.of(new Arg<>(hole, true)));
+    var call = new FnCall(id.ref, 0, ImmutableSeq.of(new Arg<>(arg, true)));
+    var cache = state.unfoldCache();
+    call.normalize(state, NormalizeMode.NF);
+    var misses = cache.misses();
+    call.normalize(state, NormalizeMode.NF);
+    assertEquals(misses, cache.misses());
+    // The entry does not depend on `n`
+    assertTrue(state.solve(n, SortTerm.Type0));
+    call.normalize(state, NormalizeMode.NF);
+    assertEquals(misses, cache.misses());
+    // The entry mentions `m`, so it is dropped
+    assertTrue(state.solve(m, new ConCall(zero.dataRef, zero.ref, ImmutableSeq.empty(), 0, ImmutableSeq.empty())));
+    call.normalize(state, NormalizeMode.NF);
+    assertEquals(misses + 1, cache.misses());
+  }
+
+  @Test public void nativeArith() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      def infixl + Nat Nat : Nat
+        | a, 0 => a
+        | a, suc b => suc (a + b)
+      def infixl * Nat Nat : Nat
+        | 0, b => 0
+        | suc a, b => b + (a * b)
+      def monus Nat Nat : Nat
+        | a, 0 => a
+        | 0, suc _ => 0
+        | suc a, suc b => monus a b
+      def big : Nat => 65536 * 65536 * 65536
+      def small : Nat => monus 3 65536
+      def huge : Nat => 4294967296 * 2
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    IntFunction<String> normalizer = i -> ((FnDef) defs.get(i)).body.getLeftValue()
+      .normalize(state, NormalizeMode.NF).toDoc(AyaPrettierOptions.debug()).debugRender();
+    assertEquals("281474976710656", normalizer.apply(defs.size() - 3));
+    assertEquals("0", normalizer.apply(defs.size() - 2));
+    assertEquals("8589934592", normalizer.apply(defs.size() - 1));
+  }
+
+  @Test public void nativeDivModLe() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      open data Bool | true | false
+      def le Nat Nat : Bool
+        | 0, _ => true
+        | suc _, 0 => false
+        | suc a, suc b => le a b
+      def divHelper Nat Nat Nat Nat : Nat
+        | k, m, 0, j => k
+        | k, m, suc n, 0 => divHelper (suc k) m n m
+        | k, m, suc n, suc j => divHelper k m n j
+      def modHelper Nat Nat Nat Nat : Nat
+        | k, m, 0, j => k
+        | k, m, suc n, 0 => modHelper 0 m n m
+        | k, m, suc n, suc j => modHelper (suc k) m n j
+      def div Nat Nat : Nat
+        | a, 0 => 0
+        | a, suc b => divHelper 0 b a b
+      def mod Nat Nat : Nat
+        | a, 0 => a
+        | a, suc b => modHelper 0 b a b
+      def quot : Nat => div 1000000007 97
+      def rem : Nat => mod 1000000007 97
+      def byZero : Nat => div 42 0
+      def helper : Nat => divHelper 0 6 12884901888 6
+      def yes : Bool => le 65536 4294967296
+      def no : Bool => le 4294967296 65536
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    IntFunction<String> normalizer = i -> ((FnDef) defs.get(defs.size() - i)).body.getLeftValue()
+      .normalize(state, NormalizeMode.NF).toDoc(AyaPrettierOptions.debug()).debugRender();
+    assertEquals("10309278", normalizer.apply(6));
+    assertEquals("41", normalizer.apply(5));
+    assertEquals("0", normalizer.apply(4));
+    assertEquals("1840700269", normalizer.apply(3));
+    assertEquals("true", normalizer.apply(2));
+    assertEquals("false", normalizer.apply(1));
+  }
+
+  @Test public void ropeConcat() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      prim String
+      prim strcat (str1 str2 : String) : String
+      def repeat Nat String : String
+        | 0, str => ""
+        | suc n, str => strcat str (repeat n str)
+      def long : String => repeat 1000 "aya"
+      def unit (str : String) : String => strcat (strcat "" str) ""
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    IntFunction<Term> normalizer = i -> ((FnDef) defs.get(i)).body.getLeftValue().normalize(state, NormalizeMode.NF);
+    var str = assertInstanceOf(StringTerm.class, normalizer.apply(defs.size() - 2));
+    assertEquals(3000, str.length());
+    assertEquals(new StringTerm("aya".repeat(1000)), str);
+    // 1000 appends of a short string stay balanced
+    assertTrue(str.rope().depth() <= 12, "depth " + str.rope().depth());
+    assertInstanceOf(RefTerm.class, normalizer.apply(defs.size() - 1));
+  }
+
+  @Test public void nativeListOps() {
+    var res = TyckDeclTest.successTyckDecls("""
+      open data Nat | zero | suc Nat
+      open data List (A : Type) | nil | cons A (List A)
+      def infixr ++ {A : Type} (List A) (List A) : List A
+        | nil, ys => ys
+        | cons x xs, ys => cons x (xs ++ ys)
+      def length {A : Type} (List A) : Nat
+        | nil => 0
+        | cons _ xs => suc (length xs)
+      def head {A : Type} (x : A) (List A) : A
+        | x, nil => x
+        | _, cons x _ => x
+      def xs : List Nat => [ 1, 2, 3 ] ++ [ 4, 5 ]
+      def len : Nat => length ([ 1, 2, 3 ] ++ [ 4, 5 ])
+      def first : Nat => head 0 ([ 1 ] ++ [ 2 ])
+      """);
+    var state = new TyckState(res.component1());
+    var defs = res.component2();
+    IntFunction<Term> normalizer = i -> ((FnDef) defs.get(i)).body.getLeftValue().normalize(state, NormalizeMode.NF);
+    var list = assertInstanceOf(ListTerm.class, normalizer.apply(defs.size() - 3));
+    assertEquals(5, list.repr().size());
+    assertEquals(BigInteger.valueOf(5), assertInstanceOf(IntegerTerm.class, normalizer.apply(defs.size() - 2)).repr());
+    assertEquals(BigInteger.ONE, assertInstanceOf(IntegerTerm.class, normalizer.apply(defs.size() - 1)).repr());
+  }
 }
@@ -0,0 +1,61 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.core.visitor;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.meta.Meta;
+import org.aya.core.term.*;
+import org.aya.generic.SortKind;
+import org.aya.ref.LocalVar;
+import org.aya.util.Arg;
+import org.aya.util.error.SourcePos;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermInternerTest {
+  private static final LocalVar X = new LocalVar("x"), Y = new LocalVar("y");
+
+  private static Term idType(LocalVar var) {
+    return new PiTerm(new Term.Param(var, SortTerm.Type0, true), new RefTerm(var));
+  }
+
+  @Test public void shareEqualTerms() {
+    var interner = new TermInterner();
+    var lhs = interner.apply(idType(X));
+    var rhs = interner.apply(idType(X));
+    assertSame(lhs, rhs);
+    assertSame(((PiTerm) lhs).body(), ((PiTerm) rhs).body());
+    var app = interner.apply(new AppTerm(new RefTerm(Y), new Arg<>(new RefTerm(X), true)));
+    assertSame(((PiTerm) lhs).body(), ((AppTerm) app).arg().term());
+  }
+
+  @Test public void distinguishLeaves() {
+    var interner = new TermInterner();
+    assertNotSame(interner.apply(new RefTerm(X)), interner.apply(new RefTerm(Y)));
+    assertNotSame(interner.apply(new SortTerm(SortKind.Type, 0)), interner.apply(new SortTerm(SortKind.Type, 1)));
+    assertNotSame(interner.apply(idType(X)), interner.apply(idType(Y)));
+  }
+
+  @Test public void mentionsMetas() {
+    var interner = new TermInterner();
+    var meta = Meta.from(ImmutableSeq.empty(), "m", SourcePos.NONE);
+    var hole = new MetaTerm(meta, ImmutableSeq.empty(), ImmutableSeq.empty());
+    var withMeta = interner.apply(new AppTerm(new RefTerm(Y), new Arg<>(hole, true)));
+    var metaFree = interner.apply(idType(X));
+    assertTrue(interner.mentionsMetas(withMeta));
+    assertTrue(interner.mentionsMetas(interner.apply(new PiTerm(new Term.Param(X, SortTerm.Type0, true), withMeta))));
+    assertFalse(interner.mentionsMetas(metaFree));
+    // Not interned, hence unknown
+    assertTrue(interner.mentionsMetas(idType(X)));
+    // The canonical terms are returned as-is
+    assertSame(metaFree, interner.apply(metaFree));
+  }
+
+  @Test public void hashLeafData() {
+    assertNotEquals(TermInterner.shallowHash(new RefTerm(X)), TermInterner.shallowHash(new RefTerm(Y)));
+    assertNotEquals(TermInterner.shallowHash(new SortTerm(SortKind.Type, 0)),
+      TermInterner.shallowHash(new SortTerm(SortKind.Type, 1)));
+    assertEquals(TermInterner.shallowHash(new RefTerm(X)), TermInterner.shallowHash(new RefTerm(X)));
+  }
+}
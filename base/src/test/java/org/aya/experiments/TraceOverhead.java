@@ -0,0 +1,60 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.experiments;
+
+import org.aya.concrete.stmt.decl.TeleDecl;
+import org.aya.core.repr.AyaShape;
+import org.aya.tyck.TyckDeclTest;
+import org.aya.tyck.trace.Trace;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Compares tycking with and without a tracer, the untraced run should not build (or freeze) any trace. */
+public class TraceOverhead {
+  public static void println(@NotNull String s) {
+    // System.out.println(s);
+  }
+
+  private static final String CODE = """
+    open data Nat | zero | suc Nat
+    def Num => Fn (x : Type 0) -> (x -> x) -> (x -> x)
+    def czero : Num => \\ A f x => x
+    def csuc (a : Num) : Num => \\ A f x => a A f (f x)
+    def add (a b : Num) : Num => \\A f x => a A f (b A f x)
+    def id {A : Type} (a : A) : A => a
+    def const {A B : Type} (a : A) (b : B) : A => a
+    def #4 : Num => add (csuc (csuc czero)) (id (const (csuc (csuc czero)) zero))
+    def #8 : Num => add (id #4) (const (id #4) (id (suc zero)))
+    def #16 : Num => add (id (const #8 #4)) (id (const (id #8) (id #4)))
+    def toNat (n : Num) : Nat => n Nat suc zero
+    def test : Nat => toNat (id (const #16 (id #8)))
+    """;
+
+  @Test @Timeout(value = 5000) public void tyckBench() {
+    // Warm up
+    for (int i = 0; i < 3; i++) tyck(null);
+    var startup = System.currentTimeMillis();
+    for (int i = 0; i < 10; i++) tyck(null);
+    println("Untraced: " + (System.currentTimeMillis() - startup));
+    startup = System.currentTimeMillis();
+    for (int i = 0; i < 10; i++) {
+      var builder = new Trace.Builder();
+      tyck(builder);
+      // Every entrance of the tracer is exited
+      assertEquals(1, builder.getTops().size());
+    }
+    println("Traced: " + (System.currentTimeMillis() - startup));
+  }
+
+  private static void tyck(@Nullable Trace.Builder builder) {
+    var res = TyckDeclTest.successDesugarDecls(CODE);
+    var shapes = new AyaShape.Factory();
+    res.component2().forEach(decl -> {
+      if (decl instanceof TeleDecl<?> signatured) TyckDeclTest.tyck(res.component1(), signatured, builder, shapes);
+    });
+  }
+}
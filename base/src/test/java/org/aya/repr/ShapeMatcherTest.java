@@ -109,6 +109,106 @@ public class ShapeMatcherTest {
       """);
   }
 
+  @Test
+  public void matchArith() {
+    match(ImmutableSeq.of(
+      Tuple.of(true, AyaShape.NAT_SHAPE),
+      Tuple.of(true, AyaShape.PLUS_RIGHT_SHAPE),
+      Tuple.of(true, AyaShape.MUL_SHAPE),
+      Tuple.of(true, AyaShape.MONUS_SHAPE),
+      Tuple.of(false, AyaShape.MUL_SHAPE)
+    ), """
+      open data Nat | zero | suc Nat
+      def plus Nat Nat : Nat
+      | a, 0 => a
+      | a, suc b => suc (plus a b)
+      def mul Nat Nat : Nat
+      | 0, b => 0
+      | suc a, b => plus b (mul a b)
+      def monus Nat Nat : Nat
+      | a, 0 => a
+      | 0, suc _ => 0
+      | suc a, suc b => monus a b
+      def notMul Nat Nat : Nat
+      | 0, b => b
+      | suc a, b => plus b (notMul a b)
+      """);
+  }
+
+  @Test
+  public void matchBool() {
+    match(true, AyaShape.BOOL_SHAPE, "open data Bool | true | false");
+    match(false, AyaShape.BOOL_SHAPE, "open data Bool | true | false | unknown");
+    match(false, AyaShape.BOOL_SHAPE, "open data Bool (A : Type) | true | false");
+  }
+
+  @Test
+  public void matchDivModLe() {
+    match(ImmutableSeq.of(
+      Tuple.of(true, AyaShape.NAT_SHAPE),
+      Tuple.of(true, AyaShape.BOOL_SHAPE),
+      Tuple.of(true, AyaShape.LE_SHAPE),
+      Tuple.of(true, AyaShape.DIV_HELPER_SHAPE),
+      Tuple.of(true, AyaShape.MOD_HELPER_SHAPE),
+      Tuple.of(true, AyaShape.DIV_SHAPE),
+      Tuple.of(true, AyaShape.MOD_SHAPE),
+      Tuple.of(false, AyaShape.LE_SHAPE),
+      Tuple.of(false, AyaShape.DIV_HELPER_SHAPE)
+    ), """
+      open data Nat | zero | suc Nat
+      open data Bool | true | false
+      def le Nat Nat : Bool
+      | 0, _ => true
+      | suc _, 0 => false
+      | suc a, suc b => le a b
+      def divHelper Nat Nat Nat Nat : Nat
+      | k, m, 0, j => k
+      | k, m, suc n, 0 => divHelper (suc k) m n m
+      | k, m, suc n, suc j => divHelper k m n j
+      def modHelper Nat Nat Nat Nat : Nat
+      | k, m, 0, j => k
+      | k, m, suc n, 0 => modHelper 0 m n m
+      | k, m, suc n, suc j => modHelper (suc k) m n j
+      def div Nat Nat : Nat
+      | a, 0 => 0
+      | a, suc b => divHelper 0 b a b
+      def mod Nat Nat : Nat
+      | a, 0 => a
+      | a, suc b => modHelper 0 b a b
+      def gt Nat Nat : Bool
+      | 0, _ => false
+      | suc _, 0 => true
+      | suc a, suc b => gt a b
+      def notDivHelper Nat Nat Nat Nat : Nat
+      | k, m, 0, j => k
+      | k, m, suc n, 0 => notDivHelper k m n m
+      | k, m, suc n, suc j => notDivHelper k m n j
+      """);
+  }
+
+  @Test
+  public void matchListOps() {
+    match(ImmutableSeq.of(
+      Tuple.of(true, AyaShape.NAT_SHAPE),
+      Tuple.of(true, AyaShape.LIST_SHAPE),
+      Tuple.of(true, AyaShape.APPEND_SHAPE),
+      Tuple.of(true, AyaShape.LENGTH_SHAPE),
+      Tuple.of(false, AyaShape.APPEND_SHAPE)
+    ), """
+      open data Nat | zero | suc Nat
+      open data List (A : Type) | nil | cons A (List A)
+      def append {A : Type} (List A) (List A) : List A
+      | nil, ys => ys
+      | cons x xs, ys => cons x (append xs ys)
+      def length {A : Type} (List A) : Nat
+      | nil => 0
+      | cons _ xs => suc (length xs)
+      def notAppend {A : Type} (List A) (List A) : List A
+      | nil, ys => ys
+      | cons x xs, ys => notAppend xs ys
+      """);
+  }
+
   public @Nullable ShapeRecognition match(boolean should, @NotNull AyaShape shape, @Language("Aya") @NonNls @NotNull String code) {
     var def = TyckDeclTest.successTyckDecls(code).component2();
     return check(ImmutableSeq.fill(def.size(), Tuple.of(should, shape)), def).getFirstOrNull();
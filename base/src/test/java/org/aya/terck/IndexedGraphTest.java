@@ -0,0 +1,63 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.terck;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.util.terck.IndexedGraph;
+import org.aya.util.terck.MutableGraph;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedGraphTest {
+  private static MutableGraph<String> graph(String... edges) {
+    var graph = MutableGraph.<String>create();
+    for (var edge : edges) {
+      var ends = edge.split(" -> ");
+      graph.sucMut(ends[0]).append(ends[1]);
+    }
+    return graph;
+  }
+
+  @Test public void cycle() {
+    // `d` is only a successor, `e` has a self loop
+    var mutable = graph("a -> b", "b -> c", "c -> a", "c -> d", "e -> e", "e -> a");
+    var graph = IndexedGraph.from(mutable);
+    assertEquals(5, graph.size());
+    assertEquals(ImmutableSeq.empty(), graph.suc("d").toImmutableSeq());
+    assertEquals(-1, graph.id("f"));
+    var SCCs = graph.topologicalOrder().map(scc -> scc.sorted());
+    assertEquals(ImmutableSeq.of(ImmutableSeq.of("d"), ImmutableSeq.of("a", "b", "c"), ImmutableSeq.of("e")), SCCs);
+    assertEquals(ImmutableSeq.of("a", "b", "c", "e"), mutable.onCycle(graph.topologicalOrder()).toImmutableSeq().sorted());
+    assertTrue(graph.hasPath("e", "d"));
+    assertFalse(graph.hasPath("d", "a"));
+  }
+
+  @Test public void reversed() {
+    var graph = IndexedGraph.from(graph("a -> b", "b -> c", "c -> a", "c -> d", "e -> e", "e -> a"));
+    var reversed = graph.reversed();
+    assertSame(reversed, graph.reversed());
+    assertSame(graph, reversed.reversed());
+    // The predecessors are in the order of the vertices
+    assertEquals(ImmutableSeq.of("c", "e"), reversed.suc("a").toImmutableSeq());
+    assertEquals(ImmutableSeq.of("c"), reversed.suc("d").toImmutableSeq());
+    assertEquals(ImmutableSeq.of("e"), reversed.suc("e").toImmutableSeq());
+    assertTrue(reversed.hasPath("d", "e"));
+    assertFalse(reversed.hasPath("e", "d"));
+  }
+
+  @Test public void deepChain() {
+    var n = 100000;
+    var mutable = MutableGraph.<Integer>create();
+    for (int i = 0; i + 1 < n; i++) mutable.sucMut(i).append(i + 1);
+    var graph = IndexedGraph.from(mutable);
+    var SCCs = graph.topologicalOrder();
+    assertEquals(n, SCCs.size());
+    assertEquals(ImmutableSeq.of(n - 1), SCCs.getFirst());
+    assertEquals(ImmutableSeq.of(0), SCCs.getLast());
+    // The vertices are numbered in the order of the chain
+    assertTrue(graph.hasPath(0, n - 1));
+    assertTrue(graph.reversed().hasPath(n - 1, 0));
+    assertFalse(graph.hasPath(n - 1, 0));
+  }
+}
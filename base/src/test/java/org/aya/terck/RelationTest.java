@@ -31,17 +31,49 @@ public class RelationTest {
     assertEquals(Relation.decr(false, 1), Relation.decr(false, 3).mul(Relation.decr(false, -2)));
   }
 
+  // only used for error reporting, so it's fine to mock it.
+  private static final FnCall DUMMY = new FnCall(DefVar.empty("f"), 0, ImmutableSeq.empty());
+  private static final ImmutableSeq<Relation> RELATIONS = ImmutableSeq.of(
+    Relation.unk(), Relation.eq(), Relation.lt(), Relation.decr(false, 0), Relation.decr(false, 3),
+    Relation.decr(true, -1), Relation.decr(false, -1), Relation.decr(true, -2));
+
+  /** @param relations row by row */
+  private static CallMatrix<FnCall, String, String> matrix(String domain, String codomain, Relation... relations) {
+    var tele = relations.length == 1 ? ImmutableSeq.of("x") : ImmutableSeq.of("x", "y");
+    var mat = new CallMatrix<>(DUMMY, domain, codomain, tele, tele);
+    for (int i = 0; i < relations.length; i++) mat.set(i / tele.size(), i % tele.size(), relations[i]);
+    return mat;
+  }
+
+  /** The relations are packed into ints in call matrices, which must behave the same as the relations. */
+  @Test public void packed() {
+    for (var x : RELATIONS) {
+      assertEquals(x, matrix("f", "g", x).get(0, 0));
+      for (var y : RELATIONS) {
+        assertEquals(x.compare(y), matrix("f", "g", x).compare(matrix("f", "g", y)));
+        var a = matrix("f", "g", x, y, y, x);
+        var b = matrix("g", "h", y, x, Relation.eq(), y);
+        var ba = CallMatrix.combine(a, b);
+        for (int i = 0; i < 2; i++)
+          for (int j = 0; j < 2; j++) {
+            var expected = Relation.unk();
+            for (int k = 0; k < 2; k++) expected = expected.add(b.get(i, k).mul(a.get(k, j)));
+            assertEquals(expected, ba.get(i, j));
+          }
+      }
+    }
+  }
+
   @Test public void pretty() {
-    var dummy = new FnCall(DefVar.empty("f"), 0, ImmutableSeq.empty());
-    // only used for error reporting, so it's fine to mock it.
-    var mat = new CallMatrix<>(dummy, "f", "g",
+    var mat = new CallMatrix<>(DUMMY, "f", "g",
       ImmutableSeq.of("a", "b", "c"),
       ImmutableSeq.of("a", "b", "c"));
-    mat.set("a", "a", Relation.eq());
-    mat.set("a", "b", Relation.lt());
-    mat.set("a", "c", Relation.unk());
-    mat.set("b", "b", Relation.decr(true, 2));
-    mat.set("c", "c", Relation.decr(false, 1));
+    // The rows are the arguments of the call to `g`, the columns are the parameters of `f`
+    mat.set(0, 0, Relation.eq());
+    mat.set(1, 0, Relation.lt());
+    mat.set(2, 0, Relation.unk());
+    mat.set(1, 1, Relation.decr(true, 2));
+    mat.set(2, 2, Relation.decr(false, 1));
     assertEquals(
       """
           =   ?   ?
@@ -18,6 +18,7 @@ import org.aya.core.def.PrimDef;
 import org.aya.ide.LspPrimFactory;
 import org.aya.prettier.AyaPrettierOptions;
 import org.aya.util.FileUtil;
+import org.aya.util.reporter.BufferReporter;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -32,6 +33,7 @@ import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LibraryTest {
   @ParameterizedTest
@@ -64,6 +66,36 @@ public class LibraryTest {
     assertEquals(0, compile(flags));
   }
 
+  /** The parallel build reports the same problems (including the skipped modules) as the sequential one. */
+  @Test public void testParallel() throws IOException {
+    assertEquals(compileProblems(DIR, 1, 0), compileProblems(DIR, 4, 0));
+  }
+
+  /**
+   * Fails in independent modules, in independent SCCs of a module,
+   * and skips the modules depending on a failed one, directly or not.
+   */
+  @Test public void testParallelFailure() throws IOException {
+    var root = TestRunner.DEFAULT_TEST_DIR.resolve("failure-lib");
+    var problems = compileProblems(root, 1, 1);
+    assertEquals(problems, compileProblems(root, 4, 1));
+    assertTrue(problems.anyMatch(p -> p.contains("Dependent")));
+    assertTrue(problems.anyMatch(p -> p.contains("Transitive")));
+  }
+
+  private static @NotNull ImmutableSeq<String> compileProblems(@NotNull Path root, int jobs, int exitCode) throws IOException {
+    var base = TestRunner.flags();
+    var flags = new CompilerFlags(base.message(), false, false, null, base.modulePaths(), null, base.solutionCheck(), jobs);
+    var reporter = new BufferReporter();
+    assertEquals(exitCode, LibraryCompiler.compile(new PrimDef.Factory(), reporter, flags, CompilerAdvisor.inMemory(), root));
+    var options = AyaPrettierOptions.debug();
+    return reporter.problems().view()
+      .map(p -> STR."\{p.level()} \{p.sourcePos()} \{p.brief(options).debugRender()}")
+      // The timings differ from build to build
+      .filterNot(p -> p.contains("Done in") || p.contains("Library loaded in"))
+      .toImmutableSeq();
+  }
+
   @Test public void testInMemoryAndPrim() throws IOException {
     var factory = new LspPrimFactory();
     var advisor = new TestAdvisor();
@@ -0,0 +1,63 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.def.PrimDef;
+import org.aya.core.meta.Meta;
+import org.aya.core.term.*;
+import org.aya.generic.SortKind;
+import org.aya.ref.LocalVar;
+import org.aya.tyck.env.MapLocalCtx;
+import org.aya.tyck.tycker.TyckState;
+import org.aya.tyck.unify.Unifier;
+import org.aya.util.Arg;
+import org.aya.util.Ordering;
+import org.aya.util.error.SourcePos;
+import org.aya.util.reporter.BufferReporter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConversionCacheTest {
+  private static final LocalVar X = new LocalVar("x");
+  private static final SortTerm TYPE1 = new SortTerm(SortKind.Type, 1);
+
+  /** {@code (\x => x) Type}, built anew every time */
+  private static Term redex() {
+    return new AppTerm(new LamTerm(new LamTerm.Param(X, true), new RefTerm(X)), new Arg<>(SortTerm.Type0, true));
+  }
+
+  private static boolean compare(TyckState state, Term lhs, Term rhs) {
+    return new Unifier(Ordering.Eq, new BufferReporter(), false, false, null, state, SourcePos.NONE, new MapLocalCtx())
+      .compare(lhs, rhs, TYPE1);
+  }
+
+  @Test public void hit() {
+    var state = new TyckState(new PrimDef.Factory());
+    var cache = state.conversionCache();
+    assertTrue(compare(state, redex(), SortTerm.Type0));
+    var hits = cache.hits();
+    var size = cache.size();
+    assertNotEquals(0, size);
+    // The terms are interned into the same ones as last time
+    assertTrue(compare(state, redex(), SortTerm.Type0));
+    assertEquals(hits + 1, cache.hits());
+    assertEquals(size, cache.size());
+  }
+
+  @Test public void invalidate() {
+    var state = new TyckState(new PrimDef.Factory());
+    var cache = state.conversionCache();
+    assertTrue(compare(state, redex(), SortTerm.Type0));
+    var size = cache.size();
+    var meta = Meta.from(ImmutableSeq.empty(), "m", SourcePos.NONE);
+    var hole = new MetaTerm(meta, ImmutableSeq.empty(), ImmutableSeq.empty());
+    cache.add(hole, SortTerm.Type0, TYPE1, Ordering.Eq, true);
+    assertTrue(cache.contains(hole, SortTerm.Type0, TYPE1, Ordering.Eq));
+    assertTrue(state.solve(meta, SortTerm.Type0));
+    assertFalse(cache.contains(hole, SortTerm.Type0, TYPE1, Ordering.Eq));
+    // The entries without metas are kept
+    assertEquals(size, cache.size());
+  }
+}
@@ -0,0 +1,55 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck;
+
+import kala.collection.SeqView;
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.term.SortTerm;
+import org.aya.core.term.Term;
+import org.aya.ref.LocalVar;
+import org.aya.tyck.env.PersistentLocalCtx;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalCtxTest {
+  private static final LocalVar A = new LocalVar("A"), B = new LocalVar("B"), C = new LocalVar("C");
+
+  @Test public void forkIsolation() {
+    var ctx = new PersistentLocalCtx();
+    ctx.put(A, SortTerm.Type0);
+    var fork = ctx.derive();
+    fork.put(B, SortTerm.Type0);
+    assertTrue(fork.contains(A));
+    assertNull(fork.getLocal(A));
+    assertFalse(ctx.contains(B));
+    ctx.put(C, SortTerm.Type0);
+    assertFalse(fork.contains(C));
+    assertEquals(ImmutableSeq.of(A, B), fork.extract().map(Term.Param::ref));
+    assertSame(fork.parent(), fork.parent());
+    assertNull(ctx.parent());
+  }
+
+  @Test public void sharedTelescope() {
+    var ctx = new PersistentLocalCtx();
+    ctx.put(A, SortTerm.Type0);
+    var outer = ctx.extract();
+    var inner = ctx.with(B, SortTerm.Type0, ctx::extract);
+    assertSame(outer, ctx.extract());
+    assertSame(outer.getFirst(), inner.getFirst());
+    assertEquals(2, inner.size());
+    assertSame(ctx.extractArgs(), ctx.extractArgs());
+  }
+
+  @Test public void removeOutOfOrder() {
+    var ctx = new PersistentLocalCtx();
+    ctx.put(A, SortTerm.Type0);
+    ctx.put(B, SortTerm.Type0);
+    ctx.put(C, SortTerm.Type0);
+    ctx.remove(SeqView.of(B));
+    assertFalse(ctx.contains(B));
+    assertEquals(ImmutableSeq.of(A, C), ctx.extract().map(Term.Param::ref));
+    ctx.remove(SeqView.of(A, C));
+    assertTrue(ctx.isEmpty());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.def.PrimDef;
+import org.aya.core.meta.Meta;
+import org.aya.core.term.MetaTerm;
+import org.aya.core.term.RefTerm;
+import org.aya.core.term.SortTerm;
+import org.aya.core.term.Term;
+import org.aya.ref.LocalVar;
+import org.aya.tyck.env.MapLocalCtx;
+import org.aya.tyck.error.HoleProblem;
+import org.aya.tyck.tycker.TyckState;
+import org.aya.tyck.unify.Unifier;
+import org.aya.util.Arg;
+import org.aya.util.Ordering;
+import org.aya.util.error.SourcePos;
+import org.aya.util.reporter.BufferReporter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Solves {@code ?t[b] := ?u[B, b]}, where {@code B} is not in the scope of {@code ?t}.
+ * Without pruning, {@code B} is a confused variable and the unifier reports a badly scoped solution.
+ */
+public class PruningTest {
+  private static final LocalVar B = new LocalVar("B"), b = new LocalVar("b");
+
+  private static MetaTerm hole(Meta meta) {
+    return new MetaTerm(meta, meta.contextTele.map(Term.Param::toArg), ImmutableSeq.empty());
+  }
+
+  private static Unifier unifier(TyckState state, BufferReporter reporter) {
+    var ctx = new MapLocalCtx();
+    ctx.put(B, SortTerm.Type0);
+    ctx.put(b, SortTerm.Type0);
+    // Confused variables are reported rather than postponed, like in the last round of solving
+    return new Unifier(Ordering.Eq, reporter, true, false, null, state, SourcePos.NONE, ctx);
+  }
+
+  @Test public void pruneUnusedContext() {
+    var state = new TyckState(new PrimDef.Factory());
+    var reporter = new BufferReporter();
+    var t = Meta.from(ImmutableSeq.of(new Term.Param(b, SortTerm.Type0, true)), "t", SourcePos.NONE);
+    var u = Meta.from(ImmutableSeq.of(
+      new Term.Param(B, SortTerm.Type0, true),
+      new Term.Param(b, SortTerm.Type0, true)), "u", SortTerm.Type0, SourcePos.NONE);
+    assertTrue(unifier(state, reporter).compare(hole(u), hole(t), SortTerm.Type0));
+    assertTrue(reporter.problems().isEmpty());
+    var solution = assertInstanceOf(MetaTerm.class, state.solution(t));
+    assertNotSame(u, solution.ref());
+    assertEquals(ImmutableSeq.of(b), solution.ref().contextTele.map(Term.Param::ref));
+    assertEquals(ImmutableSeq.of(b), solution.contextArgs().map(arg -> ((RefTerm) arg.term()).var()));
+    assertSame(solution.ref(), assertInstanceOf(MetaTerm.class, state.solution(u)).ref());
+  }
+
+  /** {@code ?t[b] := ?v[B, ?u[B, b]]}, where {@code ?u} is in a flexible position and is not pruned */
+  @Test public void refuseFlexibleOccurrence() {
+    var state = new TyckState(new PrimDef.Factory());
+    var reporter = new BufferReporter();
+    var t = Meta.from(ImmutableSeq.of(new Term.Param(b, SortTerm.Type0, true)), "t", SourcePos.NONE);
+    var u = Meta.from(ImmutableSeq.of(
+      new Term.Param(B, SortTerm.Type0, true),
+      new Term.Param(b, SortTerm.Type0, true)), "u", SortTerm.Type0, SourcePos.NONE);
+    var v = Meta.from(ImmutableSeq.of(
+      new Term.Param(B, SortTerm.Type0, true),
+      new Term.Param(new LocalVar("x"), SortTerm.Type0, true)), "v", SortTerm.Type0, SourcePos.NONE);
+    var nested = new MetaTerm(v, ImmutableSeq.of(new Arg<>(new RefTerm(B), true), new Arg<>(hole(u), true)), ImmutableSeq.empty());
+    unifier(state, reporter).compare(nested, hole(t), SortTerm.Type0);
+    assertInstanceOf(HoleProblem.BadlyScopedError.class, reporter.problems().single());
+    // Pruning `?v` alone does not make the solution well-scoped, so nothing is pruned
+    assertNull(state.solution(t));
+    assertNull(state.solution(u));
+    assertNull(state.solution(v));
+  }
+
+  @Test public void refuseDependentContext() {
+    var state = new TyckState(new PrimDef.Factory());
+    var reporter = new BufferReporter();
+    var t = Meta.from(ImmutableSeq.of(new Term.Param(b, SortTerm.Type0, true)), "t", SourcePos.NONE);
+    // The type of `b` mentions `B`, so `B` cannot be pruned
+    var u = Meta.from(ImmutableSeq.of(
+      new Term.Param(B, SortTerm.Type0, true),
+      new Term.Param(b, new RefTerm(B), true)), "u", SortTerm.Type0, SourcePos.NONE);
+    unifier(state, reporter).compare(hole(u), hole(t), SortTerm.Type0);
+    assertInstanceOf(HoleProblem.BadlyScopedError.class, reporter.problems().single());
+    assertNull(state.solution(t));
+    assertNull(state.solution(u));
+  }
+}
@@ -0,0 +1,67 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.def.PrimDef;
+import org.aya.core.meta.Meta;
+import org.aya.core.term.MetaTerm;
+import org.aya.core.term.RefTerm;
+import org.aya.core.term.SortTerm;
+import org.aya.core.term.Term;
+import org.aya.ref.LocalVar;
+import org.aya.tyck.env.MapLocalCtx;
+import org.aya.tyck.error.HoleProblem;
+import org.aya.tyck.tycker.TyckState;
+import org.aya.tyck.unify.SolutionCheck;
+import org.aya.tyck.unify.Unifier;
+import org.aya.util.Ordering;
+import org.aya.util.error.SourcePos;
+import org.aya.util.reporter.BufferReporter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Solves {@code ?m[A, x] : Type := x} where {@code x : A}, which is meta-free but ill-typed.
+ * The metas are solved the same way in every mode, only the report of the ill-typed solution differs.
+ */
+public class SolutionCheckTest {
+  private static final LocalVar A = new LocalVar("A"), x = new LocalVar("x");
+
+  private static BufferReporter solve(SolutionCheck mode, boolean endOfDecl) {
+    var state = new TyckState(new PrimDef.Factory(), mode);
+    var reporter = new BufferReporter();
+    var ctx = new MapLocalCtx();
+    ctx.put(A, SortTerm.Type0);
+    ctx.put(x, new RefTerm(A));
+    var m = Meta.from(ImmutableSeq.of(
+      new Term.Param(A, SortTerm.Type0, true),
+      new Term.Param(x, new RefTerm(A), true)), "m", SortTerm.Type0, SourcePos.NONE);
+    var hole = new MetaTerm(m, m.contextTele.map(Term.Param::toArg), ImmutableSeq.empty());
+    new Unifier(Ordering.Eq, reporter, false, false, null, state, SourcePos.NONE, ctx)
+      .compare(hole, new RefTerm(x), null);
+    assertEquals(new RefTerm(x), state.solution(m));
+    if (endOfDecl) state.solveMetas(reporter, null);
+    return reporter;
+  }
+
+  private static void assertIllTyped(BufferReporter reporter) {
+    assertInstanceOf(HoleProblem.IllTypedError.class, reporter.problems().single());
+  }
+
+  @Test public void eager() {
+    assertIllTyped(solve(SolutionCheck.Eager, false));
+    assertIllTyped(solve(SolutionCheck.Eager, true));
+  }
+
+  @Test public void deferred() {
+    assertTrue(solve(SolutionCheck.Deferred, false).problems().isEmpty());
+    assertIllTyped(solve(SolutionCheck.Deferred, true));
+  }
+
+  @Test public void trusted() {
+    assertTrue(solve(SolutionCheck.Trusted, false).problems().isEmpty());
+    assertTrue(solve(SolutionCheck.Trusted, true).problems().isEmpty());
+  }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.core.def.PrimDef;
+import org.aya.core.meta.Meta;
+import org.aya.core.term.MetaTerm;
+import org.aya.core.term.SortTerm;
+import org.aya.tyck.tycker.TyckState;
+import org.aya.util.error.SourcePos;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolutionCompressionTest {
+  private static MetaTerm hole(Meta meta) {
+    return new MetaTerm(meta, ImmutableSeq.empty(), ImmutableSeq.empty());
+  }
+
+  @Test public void chain() {
+    var state = new TyckState(new PrimDef.Factory());
+    var a = Meta.from(ImmutableSeq.empty(), "a", SourcePos.NONE);
+    var b = Meta.from(ImmutableSeq.empty(), "b", SourcePos.NONE);
+    var c = Meta.from(ImmutableSeq.empty(), "c", SourcePos.NONE);
+    var d = Meta.from(ImmutableSeq.empty(), "d", SourcePos.NONE);
+    assertTrue(state.solve(a, hole(b)));
+    assertTrue(state.solve(b, hole(c)));
+    var solution = state.solution(a);
+    assertEquals(c, assertInstanceOf(MetaTerm.class, solution).ref());
+    // The solution does not mention `d`, so it is not compressed again
+    assertTrue(state.solve(d, SortTerm.Type0));
+    assertSame(solution, state.solution(a));
+    assertTrue(state.solve(c, SortTerm.Type0));
+    assertEquals(SortTerm.Type0, state.solution(a));
+    // The original solutions are kept
+    assertEquals(hole(b), state.metas().get(a));
+  }
+}
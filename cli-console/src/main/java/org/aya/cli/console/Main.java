@@ -92,7 +92,7 @@ public class Main extends MainArgs implements Callable<Integer> {
     var flags = new CompilerFlags(message, interruptedTrace,
       compile.isRemake, pretty,
       modulePaths().view().map(Paths::get),
-      outputPath);
+      outputPath, solutionCheck, jobs);
 
     if (compile.isLibrary || compile.isRemake || compile.isNoCode) {
       // TODO: move to a new tool
@@ -6,6 +6,7 @@ import kala.collection.immutable.ImmutableSeq;
 import org.aya.cli.utils.CliEnums.PrettyFormat;
 import org.aya.cli.utils.CliEnums.PrettyStage;
 import org.aya.prelude.GeneratedVersion;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.reporter.Problem;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.Nullable;
@@ -97,6 +98,12 @@ public class MainArgs {
   public List<String> modulePaths;
   @Option(names = {"--verbosity", "-v"}, description = "Minimum severity of error reported." + CANDIDATES, defaultValue = "WARN")
   public Problem.Severity verbosity;
+  @Option(names = {"--solution-check"}, description = "How meta solutions are double-checked, "
+    + "Trusted is meant for rebuilding libraries that are known to be well-typed." + CANDIDATES, defaultValue = "Eager")
+  public SolutionCheck solutionCheck;
+  @Option(names = {"--jobs", "-j"}, description = "Number of threads compiling the modules of a library, "
+    + "or the independent declarations of a single file.", defaultValue = "1")
+  public int jobs;
   @Option(names = {"--fake-literate"}, description = "Generate literate output without compiling.")
   public boolean fakeLiterate;
 
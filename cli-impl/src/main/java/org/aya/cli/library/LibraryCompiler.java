@@ -3,7 +3,10 @@
 package org.aya.cli.library;
 
 import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
 import kala.collection.mutable.MutableSet;
+import kala.tuple.Unit;
 import org.aya.cli.library.incremental.CompilerAdvisor;
 import org.aya.cli.library.json.LibraryConfigData;
 import org.aya.cli.library.source.DiskLibraryOwner;
@@ -28,10 +31,13 @@ import org.aya.resolve.module.CachedModuleLoader;
 import org.aya.resolve.module.ModuleLoader;
 import org.aya.util.error.InternalException;
 import org.aya.util.more.StringUtil;
+import org.aya.util.reporter.BufferReporter;
 import org.aya.util.reporter.CountingReporter;
 import org.aya.util.reporter.Reporter;
+import org.aya.util.terck.IndexedGraph;
 import org.aya.util.terck.MutableGraph;
 import org.aya.util.tyck.OrgaTycker;
+import org.aya.util.tyck.ParallelScheduler;
 import org.aya.util.tyck.SCCTycker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -39,6 +45,8 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author kiva
@@ -53,7 +61,7 @@ public class LibraryCompiler {
   private LibraryCompiler(@NotNull Reporter reporter, @NotNull CompilerFlags flags, @NotNull LibraryOwner owner, @NotNull CompilerAdvisor advisor, @NotNull LibraryModuleLoader.United states) {
     var counting = CountingReporter.delegate(reporter);
     this.advisor = advisor;
-    this.moduleLoader = new CachedModuleLoader<>(new LibraryModuleLoader(counting, owner, advisor, states));
+    this.moduleLoader = new CachedModuleLoader<>(new LibraryModuleLoader(counting, owner, advisor, states, flags.solutionCheck(), null));
     this.reporter = counting;
     this.flags = flags;
     this.owner = owner;
@@ -100,14 +108,14 @@ public class LibraryCompiler {
     }
   }
 
-  private void parse(@NotNull LibrarySource source) throws IOException {
+  private void parse(@NotNull LibrarySource source, @NotNull Reporter reporter) throws IOException {
     source.parseMe(advisor.createParser(reporter));
   }
 
   /** @return whether the source file is already parsed. */
-  private boolean parseIfNeeded(@NotNull LibrarySource source) throws IOException {
+  private boolean parseIfNeeded(@NotNull LibrarySource source, @NotNull Reporter reporter) throws IOException {
     if (source.program().get() != null) return true; // already parsed
-    parse(source);
+    parse(source, reporter);
     return false;
   }
 
@@ -116,8 +124,8 @@ public class LibraryCompiler {
    * The graph is used to generate incremental build list according to files'
    * last modified time.
    */
-  private void resolveImportsIfNeeded(@NotNull LibrarySource source) throws IOException {
-    if (parseIfNeeded(source)) return; // already resolved
+  private void resolveImportsIfNeeded(@NotNull LibrarySource source, @NotNull Reporter reporter) throws IOException {
+    if (parseIfNeeded(source, reporter)) return; // already resolved
     var finder = new ImportResolver((mod, sourcePos) -> {
       // TODO: use ModulePath
       var recurse = owner.findModule(mod.path());
@@ -134,8 +142,9 @@ public class LibraryCompiler {
     var depGraph = MutableGraph.<LibrarySource>create();
     reportNest("[Info] Resolving source file dependency");
     var startTime = System.currentTimeMillis();
+    if (flags.jobs() > 1) resolveImportsInParallel(owner.librarySources().toImmutableSeq());
     owner.librarySources().forEachChecked(src -> {
-      resolveImportsIfNeeded(src);
+      resolveImportsIfNeeded(src, reporter);
       var known = depGraph.sucMut(src);
       var dedup = src.imports().filter(s ->
         known.noneMatch(k -> k.moduleName().equals(s.moduleName())));
@@ -146,6 +155,23 @@ public class LibraryCompiler {
     return depGraph;
   }
 
+  /**
+   * Parses the source files and resolves their imports concurrently,
+   * then reports the problems in the order of the source files, up to the first exception, as a sequential loop does.
+   */
+  private void resolveImportsInParallel(@NotNull ImmutableSeq<LibrarySource> sources) throws IOException {
+    var jobs = ParallelScheduler.run(flags.jobs(), sources.map(_ -> ImmutableSeq.<Integer>empty()), i -> {
+      var buffer = new BufferReporter();
+      try {
+        resolveImportsIfNeeded(sources.get(i), buffer);
+        return new Job<>(buffer, Unit.unit(), null);
+      } catch (Throwable e) {
+        return new Job<Unit>(buffer, null, e);
+      }
+    }, Job::failed);
+    for (var job : jobs) if (job != null) job.replay(reporter);
+  }
+
   public int start() throws IOException {
     if (flags.modulePaths().isNotEmpty()) reporter.reportString(
       "Warning: command-line specified module path (--module-path) is ignored when compiling libraries.");
@@ -260,11 +286,10 @@ public class LibraryCompiler {
     advisor.prepareLibraryOutput(owner);
     advisor.notifyIncrementalJob(modified, SCCs);
 
-    var tycker = new LibraryOrgaTycker(new LibrarySccTycker(reporter, moduleLoader, advisor), affected);
-    SCCs.forEachChecked(tycker::tyckSCC);
-    if (tycker.skippedSet.isNotEmpty()) {
+    var skippedSet = flags.jobs() > 1 ? tyckInParallel(SCCs, affected) : tyckSequentially(SCCs, affected);
+    if (skippedSet.isNotEmpty()) {
       reporter.reportString("I dislike the following module(s):");
-      tycker.skippedSet.forEach(f ->
+      skippedSet.forEach(f ->
         reportNest(String.format("%s (%s)", QualifiedID.join(f.moduleName()), f.displayPath())));
       // Stop the whole compilation in case downstream libraries depend on skipped modules.
       throw new LibraryTyckingFailed();
@@ -274,13 +299,97 @@ public class LibraryCompiler {
     return false;
   }
 
+  private @NotNull ImmutableSeq<LibrarySource> tyckSequentially(
+    @NotNull ImmutableSeq<ImmutableSeq<LibrarySource>> SCCs,
+    @NotNull MutableGraph<LibrarySource> affected
+  ) throws IOException {
+    var tycker = new LibraryOrgaTycker(new LibrarySccTycker(reporter, moduleLoader, advisor), affected);
+    SCCs.forEachChecked(tycker::tyckSCC);
+    return tycker.skippedSet.toImmutableSeq();
+  }
+
+  /**
+   * Tycks the modules whose imports are tycked concurrently, each SCC with its own reporter,
+   * and its own loader sharing the cache of {@link #moduleLoader}.
+   * The SCCs of the definitions in the modules are checked on the same pool, see {@link ParallelScheduler}.
+   * The problems are reported in the order of the SCCs, as {@link #tyckSequentially} does.
+   *
+   * @param affected the usage graph of the modules
+   */
+  private @NotNull ImmutableSeq<LibrarySource> tyckInParallel(
+    @NotNull ImmutableSeq<ImmutableSeq<LibrarySource>> SCCs,
+    @NotNull MutableGraph<LibrarySource> affected
+  ) throws IOException {
+    var sccOf = MutableMap.<LibrarySource, Integer>create();
+    SCCs.forEachIndexed((i, scc) -> scc.forEach(src -> sccOf.put(src, i)));
+    var dependencies = SCCs.map(_ -> MutableList.<Integer>create());
+    SCCs.forEachIndexed((i, scc) -> scc.forEach(src ->
+      affected.suc(src).forEach(usage -> dependencies.get(sccOf.get(usage)).append(i))));
+    var skippedSet = ConcurrentHashMap.<LibrarySource>newKeySet();
+    var states = moduleLoader.loader.states();
+    ImmutableSeq<Job<ImmutableSeq<LibrarySource>>> jobs;
+    try (var pool = ParallelScheduler.pool(flags.jobs())) {
+      jobs = ParallelScheduler.run(pool, dependencies, i -> {
+        var buffer = new BufferReporter();
+        var counting = CountingReporter.delegate(buffer);
+        var loader = moduleLoader.withLoader(new LibraryModuleLoader(counting, owner, advisor, states, flags.solutionCheck(), pool));
+        try {
+          var failed = new LibrarySccTycker(counting, loader, advisor).tyckSCC(SCCs.get(i).filterNot(skippedSet::contains));
+          // mark the usages before they are scheduled
+          failed.forEach(f -> skip(affected, skippedSet, f));
+          return new Job<>(buffer, failed, null);
+        } catch (Throwable e) {
+          return new Job<ImmutableSeq<LibrarySource>>(buffer, null, e);
+        }
+      }, Job::failed);
+    }
+    for (var job : jobs) {
+      if (job == null) continue;
+      job.replay(reporter);
+      if (job.result.isNotEmpty()) reporter.clear();
+    }
+    return SCCs.view().flatMap(scc -> scc).filter(skippedSet::contains).toImmutableSeq();
+  }
+
+  private static void skip(
+    @NotNull MutableGraph<LibrarySource> usageGraph,
+    @NotNull Set<LibrarySource> skipped,
+    @NotNull LibrarySource failed
+  ) {
+    if (!skipped.add(failed)) return;
+    usageGraph.suc(failed).forEach(f -> skip(usageGraph, skipped, f));
+  }
+
+  /**
+   * The outcome of a task of a parallel build.
+   *
+   * @param problems reported by the task, not yet reported to the user
+   */
+  private record Job<T>(@NotNull BufferReporter problems, T result, @Nullable Throwable error) {
+    private boolean failed() {
+      return error != null;
+    }
+
+    /** Reports the problems, and rethrows the exception of the task if any. */
+    private void replay(@NotNull Reporter reporter) throws IOException {
+      problems.problems().forEach(reporter::report);
+      switch (error) {
+        case null -> {}
+        case IOException e -> throw e;
+        case RuntimeException e -> throw e;
+        case Error e -> throw e;
+        default -> throw new IllegalStateException(error);
+      }
+    }
+  }
+
   private void reparseAffected(@NotNull LibrarySource src) throws IOException {
     if (src.tycked().get() == null) return;
     src.tycked().set(null);
     src.resolveInfo().set(null);
     src.literateData().set(null);
     clearPrimitives(src.program().get());
-    parse(src);
+    parse(src, reporter);
   }
 
   private void clearModified(@NotNull LibrarySource src) {
@@ -297,23 +406,20 @@ public class LibraryCompiler {
     @NotNull ImmutableSeq<LibrarySource> modified,
     @NotNull MutableGraph<LibrarySource> depGraph
   ) {
-    var usageGraph = depGraph.transpose();
+    var usageGraph = IndexedGraph.from(depGraph).reversed();
     var affectedUsage = MutableGraph.<LibrarySource>create();
-    modified.forEach(aff -> collectAffected(usageGraph, aff, affectedUsage));
+    // Pushed in reverse, so the modules are visited in the depth-first order
+    var worklist = MutableList.from(modified.reversed());
+    while (worklist.isNotEmpty()) {
+      var affected = worklist.removeLast();
+      if (affectedUsage.E().containsKey(affected)) continue;
+      var suc = usageGraph.suc(affected);
+      affectedUsage.sucMut(affected).appendAll(suc);
+      worklist.appendAll(suc.reversed());
+    }
     return affectedUsage;
   }
 
-  private static void collectAffected(
-    @NotNull MutableGraph<LibrarySource> usageGraph,
-    @NotNull LibrarySource affected,
-    @NotNull MutableGraph<LibrarySource> affectedUsage
-  ) {
-    if (affectedUsage.E().containsKey(affected)) return;
-    var suc = usageGraph.suc(affected);
-    affectedUsage.sucMut(affected).appendAll(suc);
-    suc.forEach(dep -> collectAffected(usageGraph, dep, affectedUsage));
-  }
-
   /** collect source files that are directly modified by user */
   private @NotNull ImmutableSeq<LibrarySource> collectModified() {
     return owner.librarySources().filter(advisor::isSourceModified).toImmutableSeq();
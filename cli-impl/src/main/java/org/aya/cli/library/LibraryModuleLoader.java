@@ -15,11 +15,13 @@ import org.aya.resolve.ResolveInfo;
 import org.aya.resolve.context.EmptyContext;
 import org.aya.resolve.module.FileModuleLoader;
 import org.aya.resolve.module.ModuleLoader;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.reporter.CountingReporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This module loader is used to load source/compiled modules in a library.
@@ -41,8 +43,14 @@ record LibraryModuleLoader(
   @NotNull CountingReporter reporter,
   @NotNull LibraryOwner owner,
   @NotNull CompilerAdvisor advisor,
-  @NotNull LibraryModuleLoader.United states
+  @NotNull LibraryModuleLoader.United states,
+  @Override @NotNull SolutionCheck solutionCheck,
+  @Override @Nullable ForkJoinPool tyckPool
 ) implements ModuleLoader {
+  @Override public int tyckParallelism() {
+    return tyckPool == null ? 1 : tyckPool.getParallelism();
+  }
+
   @Override public @NotNull ResolveInfo
   load(@NotNull ImmutableSeq<@NotNull String> mod, @NotNull ModuleLoader recurseLoader) {
     var basePaths = owner.modulePath();
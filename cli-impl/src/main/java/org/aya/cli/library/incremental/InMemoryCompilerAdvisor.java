@@ -28,7 +28,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     return source.underlyingFile();
   }
 
-  @Override public boolean isSourceModified(@NotNull LibrarySource source) {
+  @Override public synchronized boolean isSourceModified(@NotNull LibrarySource source) {
     var coreLastModified = coreTimestamp.getOption(timestampKey(source));
     try {
       if (coreLastModified.isEmpty()) return true;
@@ -39,7 +39,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     }
   }
 
-  @Override public void updateLastModified(@NotNull LibrarySource source) {
+  @Override public synchronized void updateLastModified(@NotNull LibrarySource source) {
     try {
       coreTimestamp.put(timestampKey(source), Files.getLastModifiedTime(timestampKey(source)));
     } catch (IOException ignore) {
@@ -49,20 +49,20 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
   @Override public void prepareLibraryOutput(@NotNull LibraryOwner owner) {
   }
 
-  @Override public void clearLibraryOutput(@NotNull LibraryOwner owner) {
+  @Override public synchronized void clearLibraryOutput(@NotNull LibraryOwner owner) {
     owner.librarySources().forEach(src -> {
       coreTimestamp.remove(timestampKey(src));
       clearModuleOutput(src);
     });
   }
 
-  @Override public void clearModuleOutput(@NotNull LibrarySource source) {
+  @Override public synchronized void clearModuleOutput(@NotNull LibrarySource source) {
     // TODO: what if module name clashes?
     compiledCore.remove(source.moduleName());
   }
 
   @Override
-  public @Nullable ResolveInfo doLoadCompiledCore(
+  public synchronized @Nullable ResolveInfo doLoadCompiledCore(
     SerTerm.@NotNull DeState deState,
     @NotNull Reporter reporter,
     @NotNull ImmutableSeq<String> mod,
@@ -74,7 +74,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     return compiledCore.getOrNull(mod);
   }
 
-  @Override public void doSaveCompiledCore(
+  @Override public synchronized void doSaveCompiledCore(
     Serializer.@NotNull State serState,
     @NotNull LibrarySource file,
     @NotNull ResolveInfo resolveInfo,
@@ -48,6 +48,7 @@ import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.stream.Collectors;
 
 import static org.aya.parser.AyaPsiElementTypes.*;
@@ -508,7 +509,7 @@ public record AyaProducer(
       return unreachable(node);
     }
     if (node.is(LIT_INT_EXPR)) try {
-      return new Expr.LitInt(pos, node.tokenText().toInt());
+      return new Expr.LitInt(pos, new BigInteger(node.tokenText().toString()));
     } catch (NumberFormatException ignored) {
       reporter.report(new ParseError(pos, "Unsupported integer literal `" + node.tokenText() + "`"));
       throw new ParsingInterruptedException();
@@ -7,6 +7,7 @@ import org.aya.cli.render.RenderOptions;
 import org.aya.cli.utils.CliEnums;
 import org.aya.prettier.AyaPrettierOptions;
 import org.aya.pretty.backend.string.StringPrinterConfig;
+import org.aya.tyck.unify.SolutionCheck;
 import org.aya.util.prettier.PrettierOptions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -19,8 +20,25 @@ public record CompilerFlags(
   boolean remake,
   @Nullable CompilerFlags.PrettyInfo prettyInfo,
   @NotNull SeqLike<Path> modulePaths,
-  @Nullable Path outputFile
+  @Nullable Path outputFile,
+  @NotNull SolutionCheck solutionCheck,
+  int jobs
 ) {
+  public CompilerFlags(
+    @NotNull Message message, boolean interruptedTrace, boolean remake,
+    @Nullable CompilerFlags.PrettyInfo prettyInfo, @NotNull SeqLike<Path> modulePaths, @Nullable Path outputFile
+  ) {
+    this(message, interruptedTrace, remake, prettyInfo, modulePaths, outputFile, SolutionCheck.Eager);
+  }
+
+  public CompilerFlags(
+    @NotNull Message message, boolean interruptedTrace, boolean remake,
+    @Nullable CompilerFlags.PrettyInfo prettyInfo, @NotNull SeqLike<Path> modulePaths, @Nullable Path outputFile,
+    @NotNull SolutionCheck solutionCheck
+  ) {
+    this(message, interruptedTrace, remake, prettyInfo, modulePaths, outputFile, solutionCheck, 1);
+  }
+
   public static @Nullable CompilerFlags.PrettyInfo prettyInfoFromOutput(
     @Nullable Path outputFile, @NotNull RenderOptions renderOptions,
     boolean noCodeStyle, boolean inlineCodeStyle, boolean SSR
@@ -54,7 +54,9 @@ public record SingleFileCompiler(
       var program = ayaFile.parseMe(ayaParser);
       ayaFile.pretty(flags, program, reporter, CliEnums.PrettyStage.raw);
       var loader = new CachedModuleLoader<>(new ModuleListLoader(reporter, flags.modulePaths().view().map(path ->
-        new FileModuleLoader(locator, path, reporter, ayaParser, fileManager, primFactory, builder)).toImmutableSeq()));
+        new FileModuleLoader(locator, path, reporter, ayaParser, fileManager, primFactory, builder,
+          flags.solutionCheck(), flags.jobs()))
+        .toImmutableSeq(), flags.solutionCheck(), flags.jobs()));
       loader.tyckModule(primFactory, ctx, program, builder, (moduleResolve, defs) -> {
         ayaFile.tyckAdditional(moduleResolve);
         ayaFile.pretty(flags, program, reporter, CliEnums.PrettyStage.scoped);
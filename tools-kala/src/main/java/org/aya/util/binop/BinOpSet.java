@@ -3,16 +3,36 @@
 package org.aya.util.binop;
 
 import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
 import kala.collection.mutable.MutableSet;
 import org.aya.util.error.SourcePos;
 import org.aya.util.terck.MutableGraph;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The operators and the precedences between them.
+ * The transitive closure of {@link #tighterGraph} is maintained as one bitset per operator,
+ * updated when an edge is added, so that {@link #compare} does not search the graph.
+ */
 public abstract class BinOpSet {
   public final @NotNull MutableGraph<BinOP> tighterGraph = MutableGraph.create();
   public final @NotNull MutableSet<BinOP> ops = MutableSet.of(APP_ELEM);
   public static final @NotNull BinOpSet.BinOP APP_ELEM = BinOP.from(SourcePos.NONE, OpDecl.APPLICATION);
+  /** The operators by their declarations, compared by identity, with their indices in {@link #tighterThan} */
+  private final @NotNull Map<OpDecl, Indexed> index = new IdentityHashMap<>();
+  /** The indices of the operators each operator is (transitively) tighter than */
+  private final @NotNull MutableList<BitSet> tighterThan = MutableList.create();
+
+  private record Indexed(@NotNull BinOP elem, int id) {}
+
+  public BinOpSet() {
+    indexed(APP_ELEM);
+  }
 
   public void bind(@NotNull OpDecl op, @NotNull OpDecl.BindPred pred, @NotNull OpDecl target, @NotNull SourcePos sourcePos) {
     var opElem = ensureHasElem(op, sourcePos);
@@ -29,8 +49,11 @@ public abstract class BinOpSet {
     if (lhs == APP_ELEM) return PredCmp.Tighter;
     if (rhs == APP_ELEM) return PredCmp.Looser;
     if (lhs == rhs) return PredCmp.Equal;
-    if (tighterGraph.hasPath(lhs, rhs)) return PredCmp.Tighter;
-    if (tighterGraph.hasPath(rhs, lhs)) return PredCmp.Looser;
+    var l = index.get(lhs.op);
+    var r = index.get(rhs.op);
+    if (l == null || r == null) return PredCmp.Undefined;
+    if (tighterThan.get(l.id).get(r.id)) return PredCmp.Tighter;
+    if (tighterThan.get(r.id).get(l.id)) return PredCmp.Looser;
     return PredCmp.Undefined;
   }
 
@@ -48,16 +71,33 @@ public abstract class BinOpSet {
   }
 
   public BinOP ensureHasElem(@NotNull OpDecl opDecl, @NotNull SourcePos sourcePos) {
-    var elem = ops.find(e -> e.op == opDecl);
-    if (elem.isDefined()) return elem.get();
+    var elem = index.get(opDecl);
+    if (elem != null) return elem.elem;
     var newElem = BinOP.from(sourcePos, opDecl);
     ops.add(newElem);
-    return newElem;
+    return indexed(newElem).elem;
+  }
+
+  private @NotNull Indexed indexed(@NotNull BinOpSet.BinOP elem) {
+    var indexed = new Indexed(elem, tighterThan.size());
+    tighterThan.append(new BitSet());
+    index.put(elem.op, indexed);
+    return indexed;
   }
 
   private void addTighter(@NotNull BinOpSet.BinOP from, @NotNull BinOpSet.BinOP to) {
     tighterGraph.sucMut(to);
     tighterGraph.sucMut(from).append(to);
+    var f = index.get(from.op).id;
+    var t = index.get(to.op).id;
+    if (tighterThan.get(f).get(t)) return; // already implied
+    // Everything reaching `from` now reaches `to` and everything `to` reaches
+    var gained = (BitSet) tighterThan.get(t).clone();
+    gained.set(t);
+    for (int i = 0; i < tighterThan.size(); i++) {
+      var reach = tighterThan.get(i);
+      if (i == f || reach.get(f)) reach.or(gained);
+    }
   }
 
   public void reportIfCyclic() {
@@ -41,22 +41,28 @@ public record CallGraph<C, T, P>(
     return graph.allMatch((k, ts) -> ts.allMatch((x, t) -> t.isEmpty()));
   }
 
-  /** completing a call graph is just finding its transitive closure */
+  /**
+   * completing a call graph is just finding its transitive closure.
+   * Only the matrices accepted in the last round (the frontier) are combined with the initial ones,
+   * since combining the older ones again only finds the matrices that were already merged.
+   */
   private static <C, T, P> @NotNull CallGraph<C, T, P> complete(@NotNull CallGraph<C, T, P> initial) {
     var step = initial;
+    var frontier = initial;
     while (true) {
-      var comb = indirect(initial, step);
+      var comb = indirect(initial, frontier);
       var tup = merge(comb, step);
       if (tup.component1().isEmpty()) return step; // no better matrices are found, we are complete
+      frontier = tup.component1(); // the newly accepted matrices
       step = tup.component2(); // got a partially completed call graph, try complete more
     }
   }
 
-  /** find all indirect calls and combine them together */
-  private static <C, T, P> @NotNull CallGraph<C, T, P> indirect(@NotNull CallGraph<C, T, P> initial, @NotNull CallGraph<C, T, P> step) {
+  /** find all indirect calls through the {@param frontier} and combine them together */
+  private static <C, T, P> @NotNull CallGraph<C, T, P> indirect(@NotNull CallGraph<C, T, P> initial, @NotNull CallGraph<C, T, P> frontier) {
     var comb = CallGraph.<C, T, P>create();
     initial.graph.forEach((domain, codomains) -> codomains.forEach((codomain, mats) -> mats.forEach(mat -> {
-      var indirect = step.graph.getOrNull(mat.codomain());
+      var indirect = frontier.graph.getOrNull(mat.codomain());
       if (indirect != null) indirect.forEach((indCodomain, indMats) -> indMats.forEach(ind -> {
         var combine = CallMatrix.combine(mat, ind);
         comb.put(combine);
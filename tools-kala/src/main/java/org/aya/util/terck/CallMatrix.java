@@ -5,15 +5,17 @@ package org.aya.util.terck;
 import kala.collection.immutable.ImmutableSeq;
 import org.aya.pretty.doc.Doc;
 import org.aya.pretty.doc.Docile;
-import org.aya.util.ArrayUtil;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.Debug;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+
 /**
  * A call matrix for a call `f --> g` has dimensions `arity(g) * arity(f)`.
  * Each row corresponds to one argument in the call to `g` (the codomain).
  * Each column corresponds to one formal argument of caller `f` (the domain).
+ * The relations are {@link PackedRelation}s, stored row by row in {@link #matrix}.
  *
  * @author kiva
  * @see Relation
@@ -24,7 +26,7 @@ public record CallMatrix<Callable, Def, Param>(
   @NotNull Def domain, @NotNull Def codomain,
   @NotNull ImmutableSeq<Param> domainTele,
   @NotNull ImmutableSeq<Param> codomainTele,
-  @NotNull Relation[][] matrix
+  int @NotNull [] matrix
 ) implements Docile, Selector.Candidate<CallMatrix<Callable, Def, Param>> {
   public CallMatrix(
     @NotNull Callable callable,
@@ -32,10 +34,9 @@ public record CallMatrix<Callable, Def, Param>(
     @NotNull ImmutableSeq<Param> domainTele,
     @NotNull ImmutableSeq<Param> codomainTele
   ) {
-    // TODO: sparse matrix?
     this(callable, domain, codomain, domainTele, codomainTele,
-      new Relation[codomainTele.size()][domainTele.size()]);
-    ArrayUtil.fill(matrix, Relation.unk());
+      new int[codomainTele.size() * domainTele.size()]);
+    Arrays.fill(matrix, PackedRelation.UNK);
   }
 
   public int rows() {
@@ -46,25 +47,25 @@ public record CallMatrix<Callable, Def, Param>(
     return domainTele.size();
   }
 
-  public void set(@NotNull Param domain, @NotNull Param codomain, @NotNull Relation relation) {
-    int row = codomainTele.indexOf(codomain);
-    int col = domainTele.indexOf(domain);
-    assert row != -1;
-    assert col != -1;
-    matrix[row][col] = relation;
+  /**
+   * @param row the index of the argument in {@link #codomainTele}
+   * @param col the index of the parameter in {@link #domainTele}
+   */
+  public void set(int row, int col, @NotNull Relation relation) {
+    assert row < rows() && col < cols();
+    matrix[row * cols() + col] = PackedRelation.pack(relation);
+  }
+
+  public @NotNull Relation get(int row, int col) {
+    return PackedRelation.unpack(matrix[row * cols() + col]);
   }
 
   /** Compare two call matrices by their decrease amount. */
   @Override public @NotNull Selector.DecrOrd compare(@NotNull CallMatrix<Callable, Def, Param> other) {
     if (this.domain != other.domain || this.codomain != other.codomain) return Selector.DecrOrd.Unk;
     var rel = Selector.DecrOrd.Eq;
-    for (int i = 0; i < rows(); i++)
-      for (int j = 0; j < cols(); j++) {
-        var m = this.matrix[i][j];
-        var n = other.matrix[i][j];
-        var cmp = m.compare(n);
-        rel = rel.mul(cmp);
-      }
+    for (int i = 0; i < matrix.length && rel != Selector.DecrOrd.Unk; i++)
+      rel = rel.mul(PackedRelation.compare(matrix[i], other.matrix[i]));
     return rel;
   }
 
@@ -83,16 +84,24 @@ public record CallMatrix<Callable, Def, Param>(
     var BA = new CallMatrix<>(B.callable, A.domain, B.codomain,
       A.domainTele, B.codomainTele);
 
+    // Adding an unknown relation changes nothing, so the unknown relations in B are skipped
+    int n = BA.cols(), m = B.cols();
     for (int i = 0; i < BA.rows(); i++)
-      for (int j = 0; j < BA.cols(); j++)
-        for (int k = 0; k < B.cols(); k++)
-          BA.matrix[i][j] = BA.matrix[i][j].add(B.matrix[i][k].mul(A.matrix[k][j]));
+      for (int k = 0; k < m; k++) {
+        var b = B.matrix[i * m + k];
+        if (b == PackedRelation.UNK) continue;
+        for (int j = 0; j < n; j++) {
+          var a = A.matrix[k * n + j];
+          if (a == PackedRelation.UNK) continue;
+          BA.matrix[i * n + j] = PackedRelation.add(BA.matrix[i * n + j], PackedRelation.mul(b, a));
+        }
+      }
     return BA;
   }
 
   public @NotNull Doc toDoc() {
-    var lines = ImmutableSeq.from(matrix)
-      .map(row -> Doc.stickySep(ImmutableSeq.from(row).map(Relation::toDoc)));
+    var lines = ImmutableSeq.fill(rows(), i ->
+      Doc.stickySep(ImmutableSeq.fill(cols(), j -> get(i, j).toDoc())));
     return Doc.vcat(lines);
   }
 }
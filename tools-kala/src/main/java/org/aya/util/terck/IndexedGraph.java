@@ -0,0 +1,205 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.util.terck;
+
+import kala.collection.SeqView;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import kala.range.primitive.IntRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An immutable snapshot of a {@link MutableGraph} with the vertices numbered,
+ * whose edges are stored in the compressed sparse row format:
+ * the successors of the vertex {@code v} are {@code targets[offsets[v] .. offsets[v + 1]]}.
+ * The vertices are numbered in the order of {@link MutableGraph#E()},
+ * followed by the vertices that are only successors, in the order they are found.
+ * <p>
+ * The algorithms are iterative, so they do not overflow the stack on long chains,
+ * and keep their state in int arrays rather than objects per vertex.
+ *
+ * @see MutableGraph
+ */
+public final class IndexedGraph<T> {
+  private final @NotNull ImmutableSeq<T> vertices;
+  private final @NotNull MutableMap<T, Integer> ids;
+  private final int @NotNull [] offsets;
+  private final int @NotNull [] targets;
+  private @Nullable IndexedGraph<T> reversed;
+
+  private IndexedGraph(
+    @NotNull ImmutableSeq<T> vertices, @NotNull MutableMap<T, Integer> ids,
+    int @NotNull [] offsets, int @NotNull [] targets
+  ) {
+    this.vertices = vertices;
+    this.ids = ids;
+    this.offsets = offsets;
+    this.targets = targets;
+  }
+
+  public static <T> @NotNull IndexedGraph<T> from(@NotNull MutableGraph<T> graph) {
+    var vertices = MutableList.<T>create();
+    var ids = MutableMap.<T, Integer>create();
+    graph.E().forEach((v, ws) -> {
+      ids.put(v, vertices.size());
+      vertices.append(v);
+    });
+    var edges = 0;
+    for (var ws : graph.E().valuesView()) {
+      for (var w : ws) {
+        if (!ids.containsKey(w)) {
+          ids.put(w, vertices.size());
+          vertices.append(w);
+        }
+      }
+      edges += ws.size();
+    }
+    var offsets = new int[vertices.size() + 1];
+    var targets = new int[edges];
+    var pos = 0;
+    for (int v = 0; v < vertices.size(); v++) {
+      offsets[v] = pos;
+      var ws = graph.E().getOrNull(vertices.get(v));
+      if (ws != null) for (var w : ws) targets[pos++] = ids.get(w);
+    }
+    offsets[vertices.size()] = pos;
+    return new IndexedGraph<>(vertices.toImmutableSeq(), ids, offsets, targets);
+  }
+
+  public int size() {
+    return vertices.size();
+  }
+
+  public @NotNull T vertex(int v) {
+    return vertices.get(v);
+  }
+
+  /** @return the number of the vertex, or -1 if it is not in the graph */
+  public int id(@NotNull T vertex) {
+    var id = ids.getOrNull(vertex);
+    return id == null ? -1 : id;
+  }
+
+  public @NotNull SeqView<T> suc(@NotNull T vertex) {
+    var v = id(vertex);
+    if (v == -1) return SeqView.empty();
+    return IntRange.closedOpen(offsets[v], offsets[v + 1]).mapToObj(i -> vertices.get(targets[i])).view();
+  }
+
+  /** @return the graph with every edge reversed, computed once and sharing the vertices of this graph */
+  public @NotNull IndexedGraph<T> reversed() {
+    if (reversed != null) return reversed;
+    var n = size();
+    var revOffsets = new int[n + 1];
+    for (var w : targets) revOffsets[w + 1]++;
+    for (int v = 0; v < n; v++) revOffsets[v + 1] += revOffsets[v];
+    var revTargets = new int[targets.length];
+    var next = Arrays.copyOf(revOffsets, n);
+    // The predecessors of each vertex are in the order of the vertices, like MutableGraph#transpose
+    for (int v = 0; v < n; v++)
+      for (int i = offsets[v]; i < offsets[v + 1]; i++)
+        revTargets[next[targets[i]]++] = v;
+    reversed = new IndexedGraph<>(vertices, ids, revOffsets, revTargets);
+    reversed.reversed = this;
+    return reversed;
+  }
+
+  public boolean hasPath(@NotNull T from, @NotNull T to) {
+    if (from == to) return true;
+    var f = id(from);
+    var t = id(to);
+    return f != -1 && t != -1 && hasPath(f, t);
+  }
+
+  public boolean hasPath(int from, int to) {
+    if (from == to) return true;
+    var visited = new BitSet(size());
+    var stack = new int[size()];
+    var sp = 0;
+    stack[sp++] = from;
+    visited.set(from);
+    while (sp > 0) {
+      var v = stack[--sp];
+      for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+        var w = targets[i];
+        if (w == to) return true;
+        if (!visited.get(w)) {
+          visited.set(w);
+          stack[sp++] = w;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tarjan's algorithm with an explicit stack, visiting the vertices and edges in the same order as the recursive one.
+   *
+   * @return the strongly connected components in a topological order (need reversing),
+   * that is, the ones depended on come first for a graph whose edge (v, w) means v depends on w.
+   * @see MutableGraph#topologicalOrder()
+   */
+  public @NotNull ImmutableSeq<ImmutableSeq<T>> topologicalOrder() {
+    var n = size();
+    var index = new int[n];
+    var lowlink = new int[n];
+    Arrays.fill(index, -1);
+    var onStack = new BitSet(n);
+    // The stack of Tarjan's algorithm
+    var stack = new int[n];
+    var sp = 0;
+    // The stack of the recursion: the vertex and the next edge to visit
+    var frames = new int[n];
+    var edges = new int[n];
+    var fp = 0;
+    var counter = 0;
+    var SCCs = MutableList.<ImmutableSeq<T>>create();
+    for (int root = 0; root < n; root++) {
+      if (index[root] != -1) continue;
+      index[root] = lowlink[root] = counter++;
+      stack[sp++] = root;
+      onStack.set(root);
+      frames[fp] = root;
+      edges[fp++] = offsets[root];
+      while (fp > 0) {
+        var v = frames[fp - 1];
+        if (edges[fp - 1] < offsets[v + 1]) {
+          var w = targets[edges[fp - 1]++];
+          if (index[w] == -1) {
+            index[w] = lowlink[w] = counter++;
+            stack[sp++] = w;
+            onStack.set(w);
+            frames[fp] = w;
+            edges[fp++] = offsets[w];
+          } else if (onStack.get(w)) {
+            // `w` is in the current SCC, otherwise (v, w) points to an SCC already found
+            lowlink[v] = Math.min(lowlink[v], index[w]);
+          }
+          continue;
+        }
+        // All successors of `v` are visited, if `v` is a root, pop the stack and generate an SCC
+        if (lowlink[v] == index[v]) {
+          var scc = MutableList.<T>create();
+          int t;
+          do {
+            t = stack[--sp];
+            onStack.clear(t);
+            scc.append(vertices.get(t));
+          } while (t != v);
+          SCCs.append(scc.toImmutableSeq());
+        }
+        fp--;
+        if (fp > 0) {
+          var u = frames[fp - 1];
+          lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+        }
+      }
+    }
+    return SCCs.toImmutableSeq();
+  }
+}
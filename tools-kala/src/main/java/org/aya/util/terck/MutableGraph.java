@@ -22,15 +22,29 @@ public record MutableGraph<T>(@NotNull MutableMap<T, @NotNull MutableList<@NotNu
   }
 
   public boolean hasPath(@NotNull T from, @NotNull T to) {
-    return hasPath(MutableSet.create(), from, to);
+    var book = MutableSet.<T>create();
+    var stack = MutableSinglyLinkedList.<T>create();
+    stack.push(from);
+    while (stack.isNotEmpty()) {
+      var v = stack.pop();
+      if (v == to) return true;
+      if (!book.add(v)) continue;
+      suc(v).forEach(stack::push);
+    }
+    return false;
   }
 
-  private boolean hasPath(@NotNull MutableSet<T> book, @NotNull T from, @NotNull T to) {
-    if (from == to) return true;
-    if (book.contains(from)) return false;
-    book.add(from);
-    for (var test : suc(from)) if (hasPath(book, test, to)) return true;
-    return false;
+  /**
+   * @param SCCs the strongly connected components of this graph, see {@link #topologicalOrder()}
+   * @return the vertices that reach themselves, namely those in a nontrivial SCC or with a self loop
+   */
+  public @NotNull MutableSet<T> onCycle(@NotNull ImmutableSeq<ImmutableSeq<T>> SCCs) {
+    var onCycle = MutableSet.<T>create();
+    SCCs.forEach(scc -> {
+      if (scc.sizeGreaterThan(1)) onCycle.addAll(scc);
+      else if (suc(scc.getFirst()).contains(scc.getFirst())) onCycle.add(scc.getFirst());
+    });
+    return onCycle;
   }
 
   public @NotNull ImmutableSeq<ImmutableSeq<T>> findCycles() {
@@ -40,9 +54,11 @@ public record MutableGraph<T>(@NotNull MutableMap<T, @NotNull MutableList<@NotNu
   /**
    * Returns a topological order of the graph
    * whose edge (v, w) means v depends on w.
+   *
+   * @see IndexedGraph#topologicalOrder()
    */
   public ImmutableSeq<ImmutableSeq<T>> topologicalOrder() {
-    return new Tarjan().tarjan();
+    return IndexedGraph.from(this).topologicalOrder();
   }
 
   public @NotNull MutableGraph<T> transpose() {
@@ -53,77 +69,4 @@ public record MutableGraph<T>(@NotNull MutableMap<T, @NotNull MutableList<@NotNu
     });
     return tr;
   }
-
-  private static class Info {
-    static final int INDEX_NONE = Integer.MAX_VALUE;
-    int index = INDEX_NONE;
-    int lowlink = INDEX_NONE;
-    boolean free = false;
-
-    boolean noIndex() {
-      return index == INDEX_NONE;
-    }
-  }
-
-  /**
-   * Find strongly connected components in a graph,
-   * and return the topological order (need reversing) of the components.
-   */
-  private class Tarjan {
-    final MutableMap<T, Info> info = MutableLinkedHashMap.of();
-    final MutableSinglyLinkedList<T> stack = MutableSinglyLinkedList.create();
-    final MutableList<ImmutableSeq<T>> SCCs = MutableList.create();
-    int index = 0;
-
-    private @NotNull Info info(@NotNull T t) {
-      return info.getOrPut(t, Info::new);
-    }
-
-    private void push(@NotNull T v) {
-      stack.push(v);
-      info(v).free = true;
-    }
-
-    private @NotNull T pop() {
-      var v = stack.pop();
-      info(v).free = false;
-      return v;
-    }
-
-    public void makeSCC(@NotNull T v) {
-      var infoV = info(v);
-      infoV.index = infoV.lowlink = index++;
-      push(v);
-
-      suc(v).forEach(w -> {
-        var infoW = info(w);
-        if (infoW.noIndex()) {
-          makeSCC(w);
-          infoV.lowlink = Math.min(infoV.lowlink, infoW.lowlink);
-        } else if (infoW.free) {
-          // successor `w` is in stack and free, so it is in the current SCC.
-          // If `w` is not free, then (v, w) is an edge pointing to an SCC already found,
-          // we must ignore `w` or we will get more than one `w` in topological order.
-          infoV.lowlink = Math.min(infoV.lowlink, infoW.index);
-        }
-      });
-
-      // If v is a root node, pop the stack and generate an SCC
-      if (infoV.lowlink == infoV.index) {
-        var scc = MutableList.<T>create();
-        T t = null;
-        while (v != t) {
-          t = pop();
-          scc.append(t);
-        }
-        SCCs.append(scc.toImmutableSeq());
-      }
-    }
-
-    public ImmutableSeq<ImmutableSeq<T>> tarjan() {
-      // view should be lazy or this code will blow up
-      E.keysView().filter(v -> info(v).noIndex()).forEach(this::makeSCC);
-      return SCCs.toImmutableSeq();
-    }
-  }
 }
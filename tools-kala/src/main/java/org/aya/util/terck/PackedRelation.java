@@ -0,0 +1,69 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.util.terck;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link Relation}s packed into ints, used by {@link CallMatrix}, so that completing a call graph
+ * does not allocate a relation for every entry of every combined matrix.
+ * The unknown relation is {@link #UNK}, and a decrease of {@code size} is {@code size << 1 | usable}.
+ * The sizes may be negative (an increase compensated by the decreases after it), so they are sign-extended
+ * when unpacked, and they are between {@link #MIN_SIZE} and {@link #MAX_SIZE} so that {@link #UNK} is never a decrease.
+ * The operations are the same as the ones in {@link Relation}.
+ *
+ * @see Relation
+ */
+final class PackedRelation {
+  static final int UNK = Integer.MIN_VALUE;
+  static final int MIN_SIZE = (Integer.MIN_VALUE >> 1) + 1;
+  static final int MAX_SIZE = Integer.MAX_VALUE >> 1;
+
+  private PackedRelation() {}
+
+  static int pack(@NotNull Relation relation) {
+    return switch (relation) {
+      case Relation.Unknown _ -> UNK;
+      case Relation.Decrease(var usable, var size) -> {
+        assert MIN_SIZE <= size && size <= MAX_SIZE : size;
+        yield size << 1 | (usable ? 1 : 0);
+      }
+    };
+  }
+
+  static @NotNull Relation unpack(int relation) {
+    return relation == UNK ? Relation.unk() : Relation.decr(usable(relation), size(relation));
+  }
+
+  private static boolean usable(int relation) {
+    return (relation & 1) != 0;
+  }
+
+  private static int size(int relation) {
+    return relation >> 1;
+  }
+
+  /** @see Relation#mul */
+  @Contract(pure = true) static int mul(int lhs, int rhs) {
+    if (lhs == UNK || rhs == UNK) return UNK;
+    return (size(lhs) + size(rhs)) << 1 | (lhs | rhs) & 1;
+  }
+
+  /** @see Relation#add */
+  @Contract(pure = true) static int add(int lhs, int rhs) {
+    return switch (compare(lhs, rhs)) {
+      case Lt -> rhs;
+      case Eq, Gt -> lhs;
+      case Unk -> throw new AssertionError("unreachable");
+    };
+  }
+
+  /** @see Relation#compare */
+  static @NotNull Selector.DecrOrd compare(int lhs, int rhs) {
+    if (lhs == UNK) return rhs == UNK ? Selector.DecrOrd.Eq : Selector.DecrOrd.Lt;
+    if (rhs == UNK) return Selector.DecrOrd.Gt;
+    return Selector.DecrOrd.compareBool(usable(lhs), usable(rhs))
+      .add(Selector.DecrOrd.compareInt(size(lhs), size(rhs)));
+  }
+}
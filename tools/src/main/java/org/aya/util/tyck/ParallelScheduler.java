@@ -0,0 +1,140 @@
+// Copyright (c) 2020-2023 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.util.tyck;
+
+import kala.collection.SeqLike;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Runs the tasks of a dependency DAG on a work-stealing pool, each task as soon as its dependencies are done.
+ * The tasks are indexed in a topological order (like the SCCs of {@code MutableGraph#topologicalOrder()}),
+ * and the results are returned in this order, so the callers can merge them deterministically.
+ * <p>
+ * The schedulers may share a pool, like the library compiler checking the modules,
+ * whose tasks check the SCCs of each module on the same pool, so they share one thread budget.
+ *
+ * @see OrgaTycker
+ */
+public final class ParallelScheduler<R> {
+  private final @NotNull ImmutableSeq<ImmutableSeq<Integer>> usages;
+  private final @NotNull IntFunction<R> task;
+  private final @NotNull Predicate<R> fatal;
+  /** The number of unfinished dependencies of each task */
+  private final @NotNull AtomicIntegerArray pending;
+  private final @NotNull AtomicReferenceArray<R> results;
+  private final @NotNull AtomicReferenceArray<Throwable> thrown;
+  private final @NotNull CountDownLatch done;
+  /** The first task in the topological order with a fatal result */
+  private final @NotNull AtomicInteger firstFatal = new AtomicInteger(Integer.MAX_VALUE);
+  private final @NotNull ForkJoinPool pool;
+
+  private ParallelScheduler(
+    @NotNull ImmutableSeq<? extends SeqLike<Integer>> dependencies,
+    @NotNull IntFunction<R> task, @NotNull Predicate<R> fatal,
+    @NotNull ForkJoinPool pool
+  ) {
+    var size = dependencies.size();
+    var usages = MutableList.<MutableList<Integer>>create();
+    for (int i = 0; i < size; i++) usages.append(MutableList.create());
+    this.pending = new AtomicIntegerArray(size);
+    dependencies.forEachIndexed((i, deps) -> {
+      var distinct = deps.view().distinct().filter(j -> j != i).toImmutableSeq();
+      distinct.forEach(j -> usages.get(j).append(i));
+      pending.set(i, distinct.size());
+    });
+    this.usages = usages.view().map(MutableList::toImmutableSeq).toImmutableSeq();
+    this.task = task;
+    this.fatal = fatal;
+    this.results = new AtomicReferenceArray<>(size);
+    this.thrown = new AtomicReferenceArray<>(size);
+    this.done = new CountDownLatch(size);
+    this.pool = pool;
+  }
+
+  /** @return a pool for {@link #run(ForkJoinPool, ImmutableSeq, IntFunction, Predicate)}, closed by the caller */
+  public static @NotNull ForkJoinPool pool(int parallelism) {
+    return new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+  }
+
+  /** Runs the tasks on a pool of their own, see {@link #run(ForkJoinPool, ImmutableSeq, IntFunction, Predicate)} */
+  public static <R> @NotNull ImmutableSeq<@Nullable R> run(
+    int parallelism, @NotNull ImmutableSeq<? extends SeqLike<Integer>> dependencies,
+    @NotNull IntFunction<R> task, @NotNull Predicate<R> fatal
+  ) {
+    try (var pool = pool(parallelism)) {
+      return run(pool, dependencies, task, fatal);
+    }
+  }
+
+  /**
+   * The calling thread may be a worker of {@code pool}, since it waits in {@link ForkJoinPool#managedBlock},
+   * so the pool runs the tasks on another worker meanwhile, keeping its parallelism.
+   *
+   * @param dependencies the indices of the tasks each task depends on
+   * @param task         runs a task, whose exception is rethrown when all the tasks are done
+   * @param fatal        whether a result stops the tasks after it, like an exception stops a sequential loop
+   * @return the results in the topological order, null for the tasks that are not run
+   */
+  public static <R> @NotNull ImmutableSeq<@Nullable R> run(
+    @NotNull ForkJoinPool pool, @NotNull ImmutableSeq<? extends SeqLike<Integer>> dependencies,
+    @NotNull IntFunction<R> task, @NotNull Predicate<R> fatal
+  ) {
+    var scheduler = new ParallelScheduler<>(dependencies, task, fatal, pool);
+    for (int i = 0; i < dependencies.size(); i++) if (scheduler.pending.get(i) == 0) scheduler.submit(i);
+    try {
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+        @Override public boolean block() throws InterruptedException {
+          scheduler.done.await();
+          return true;
+        }
+
+        @Override public boolean isReleasable() {
+          return scheduler.done.getCount() == 0;
+        }
+      });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+    for (int i = 0; i < dependencies.size(); i++) {
+      switch (scheduler.thrown.get(i)) {
+        case null -> {}
+        case RuntimeException e -> throw e;
+        case Error e -> throw e;
+        case Throwable e -> throw new IllegalStateException(e);
+      }
+    }
+    return ImmutableSeq.fill(dependencies.size(), scheduler.results::get);
+  }
+
+  private void submit(int i) {
+    pool.execute(() -> {
+      try {
+        // The tasks after a fatal one are not run, but their usages still need to be released
+        if (firstFatal.get() > i) {
+          var result = task.apply(i);
+          results.set(i, result);
+          if (fatal.test(result)) firstFatal.accumulateAndGet(i, Math::min);
+        }
+      } catch (Throwable e) {
+        // A task throwing anyway is fatal, and the exception is rethrown by the caller
+        thrown.set(i, e);
+        firstFatal.accumulateAndGet(i, Math::min);
+      } finally {
+        for (var usage : usages.get(i)) if (pending.decrementAndGet(usage) == 0) submit(usage);
+        done.countDown();
+      }
+    });
+  }
+}